@@ -0,0 +1,136 @@
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.GridLayout;
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTextArea;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
+import javax.swing.UIManager;
+
+/**
+ * Review screen listing every question of a finished quiz with the user's answer.
+ * Rows are fixed-height cells of a {@link JList}, so only the visible ones are
+ * rendered, through a single reused renderer. The full prompt of the selected
+ * row is shown in a detail area below the list.
+ *
+ * @author GasTheJuice
+ */
+public class AnswerReviewPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private static final Color CORRECT = new Color(0x2E7D32);
+    private static final Color WRONG = new Color(0xC62828);
+
+    private final QuizManager quizManager;
+    private final JTextArea detail = new JTextArea();
+
+    /**
+     * Creates a review of the current (finished) quiz of the given manager.
+     *
+     * @param quizManager manager holding questions and stored answers
+     */
+    public AnswerReviewPanel(QuizManager quizManager) {
+        super(new BorderLayout(5, 5));
+        this.quizManager = quizManager;
+
+        JList<Integer> list = new JList<>(new AbstractListModel<Integer>() {
+            @Override
+            public int getSize() { return quizManager.getQuestionCount(); }
+
+            @Override
+            public Integer getElementAt(int index) { return index; }
+        });
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setCellRenderer(new ReviewRenderer());
+        // Fixed cell size keeps JList from measuring every row up front.
+        list.setFixedCellHeight(new ReviewRenderer().getPreferredSize().height);
+        list.setFixedCellWidth(560);
+        list.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && list.getSelectedIndex() >= 0) {
+                showDetail(list.getSelectedIndex());
+            }
+        });
+
+        detail.setEditable(false);
+        detail.setLineWrap(true);
+        detail.setWrapStyleWord(true);
+        detail.setFont(new Font("Monospaced", Font.PLAIN, 12));
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                                          new JScrollPane(list), new JScrollPane(detail));
+        split.setResizeWeight(0.7);
+        add(new JLabel(String.format("Correct: %d   Wrong: %d   Score: %.2f%%",
+            quizManager.getCorrectCount(), quizManager.getWrongCount(), quizManager.getPercentage())),
+            BorderLayout.NORTH);
+        add(split, BorderLayout.CENTER);
+        setPreferredSize(new Dimension(620, 460));
+
+        if (quizManager.getQuestionCount() > 0) {
+            list.setSelectedIndex(0);
+        }
+    }
+
+    /** Fills the detail area with the full prompt and answers of one question. */
+    private void showDetail(int index) {
+        Question q = quizManager.getQuestion(index);
+        String answer = quizManager.getUserAnswer(index);
+        answer = answer == null ? null : q.describeAnswer(answer);
+        detail.setText(q.getPrompt()
+            + "\n\nYour answer: " + (answer == null || answer.isEmpty() ? "(no answer)" : answer)
+            + "\nCorrect answer: " + (q.getAnswers() != null ? String.join(" / ", q.getAnswers()) : "marked area")
+            + String.format("%nTime: %.1fs", quizManager.getResponseNanos(index) / 1e9));
+        detail.setCaretPosition(0);
+    }
+
+    /** Renders one review row; a single instance is reused for all visible rows */
+    private final class ReviewRenderer extends JPanel implements ListCellRenderer<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final JLabel prompt = new JLabel();
+        private final JLabel answer = new JLabel();
+        private final JLabel expected = new JLabel();
+
+        ReviewRenderer() {
+            super(new GridLayout(3, 1));
+            setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+            prompt.setFont(prompt.getFont().deriveFont(Font.BOLD));
+            prompt.setText(" ");
+            answer.setText(" ");
+            expected.setText(" ");
+            add(prompt);
+            add(answer);
+            add(expected);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Integer> list, Integer value,
+                                                      int index, boolean isSelected, boolean cellHasFocus) {
+            Question q = quizManager.getQuestion(value);
+            String user = quizManager.getUserAnswer(value);
+            user = user == null ? null : q.describeAnswer(user);
+            boolean correct = quizManager.isAnswerCorrect(value);
+
+            String firstLine = q.getPrompt().lines().findFirst().orElse("");
+            prompt.setText((value + 1) + ". " + firstLine);
+            answer.setText((correct ? "✔ " : "✘ ")
+                + (user == null || user.isEmpty() ? "(no answer)" : user));
+            expected.setText("Correct: " + (q.getAnswers() != null ? String.join(" / ", q.getAnswers()) : "marked area"));
+
+            Color fg = isSelected ? list.getSelectionForeground() : list.getForeground();
+            setBackground(isSelected ? list.getSelectionBackground() : list.getBackground());
+            prompt.setForeground(fg);
+            expected.setForeground(isSelected ? fg : UIManager.getColor("Label.disabledForeground"));
+            answer.setForeground(isSelected ? fg : (correct ? CORRECT : WRONG));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fixed-size summary of the answers given to one question: a count-min sketch
+ * estimating how often any answer was seen, plus the {@value #TOP} answers with
+ * the highest estimates. Each update touches {@value #DEPTH} counters and the
+ * small candidate list, whatever the number of answers seen so far. Estimates
+ * never undercount and overcount by at most {@code e / WIDTH} of the total with
+ * high probability. Two sketches merge by adding their counters, so sketches
+ * built on different machines can be combined.
+ *
+ * <p>Not thread-safe; callers must serialize access.</p>
+ *
+ * @author GasTheJuice
+ */
+public class AnswerSketch {
+    /** Hash rows of the count-min sketch */
+    public static final int DEPTH = 4;
+
+    /** Counters per hash row, a power of two */
+    public static final int WIDTH = 256;
+
+    /** Number of most frequent answers kept */
+    public static final int TOP = 10;
+
+    /** Longer answers are cut to this length before counting */
+    public static final int MAX_ANSWER_CHARS = 100;
+
+    private final int[] counters = new int[DEPTH * WIDTH];
+    private final String[] topAnswers = new String[TOP];
+    private final long[] topCounts = new long[TOP];
+    private long total;
+
+    /** An answer and its estimated count */
+    public static final class HeavyHitter {
+        private final String answer;
+        private final long count;
+
+        HeavyHitter(String answer, long count) {
+            this.answer = answer;
+            this.count = count;
+        }
+
+        /** @return the (normalized) answer */
+        public String getAnswer() { return answer; }
+
+        /** @return estimated number of times it was given */
+        public long getCount() { return count; }
+    }
+
+    /**
+     * Counts one occurrence of an answer.
+     *
+     * @param answer normalized answer
+     */
+    public void add(String answer) {
+        if (answer.length() > MAX_ANSWER_CHARS) {
+            answer = answer.substring(0, MAX_ANSWER_CHARS);
+        }
+        int hash = answer.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int idx = index(hash, row);
+            if (counters[idx] < Integer.MAX_VALUE) {
+                counters[idx]++;
+            }
+            estimate = Math.min(estimate, counters[idx]);
+        }
+        total++;
+        offer(answer, estimate);
+    }
+
+    /**
+     * Returns the estimated count of an answer.
+     *
+     * @param answer normalized answer
+     * @return estimate, never lower than the true count
+     */
+    public long estimate(String answer) {
+        if (answer.length() > MAX_ANSWER_CHARS) {
+            answer = answer.substring(0, MAX_ANSWER_CHARS);
+        }
+        int hash = answer.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters[index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /** @return number of answers counted */
+    public long getTotal() { return total; }
+
+    /**
+     * Returns the most frequent answers, most frequent first.
+     *
+     * @param n maximum number of answers, at most {@value #TOP} are kept
+     * @return heavy hitters with their estimated counts
+     */
+    public List<HeavyHitter> top(int n) {
+        List<HeavyHitter> list = new ArrayList<>(TOP);
+        for (int i = 0; i < TOP; i++) {
+            if (topAnswers[i] != null) {
+                list.add(new HeavyHitter(topAnswers[i], topCounts[i]));
+            }
+        }
+        list.sort(Comparator.comparingLong(HeavyHitter::getCount).reversed().thenComparing(HeavyHitter::getAnswer));
+        return list.size() > n ? list.subList(0, n) : list;
+    }
+
+    /**
+     * Adds the counts of another sketch to this one.
+     *
+     * @param other sketch to merge in, left unchanged
+     */
+    public void merge(AnswerSketch other) {
+        for (int i = 0; i < counters.length; i++) {
+            long sum = (long) counters[i] + other.counters[i];
+            counters[i] = (int) Math.min(sum, Integer.MAX_VALUE);
+        }
+        total += other.total;
+
+        Set<String> candidates = new LinkedHashSet<>();
+        for (int i = 0; i < TOP; i++) {
+            if (topAnswers[i] != null) {
+                candidates.add(topAnswers[i]);
+            }
+            if (other.topAnswers[i] != null) {
+                candidates.add(other.topAnswers[i]);
+            }
+        }
+        Arrays.fill(topAnswers, null);
+        Arrays.fill(topCounts, 0);
+        for (String answer : candidates) {
+            offer(answer, estimate(answer));
+        }
+    }
+
+    /** Keeps an answer among the top ones if its estimate beats the weakest. */
+    private void offer(String answer, long estimate) {
+        int weakest = -1;
+        for (int i = 0; i < TOP; i++) {
+            if (topAnswers[i] == null || topAnswers[i].equals(answer)) {
+                topAnswers[i] = answer;
+                topCounts[i] = estimate;
+                return;
+            }
+            if (weakest < 0 || topCounts[i] < topCounts[weakest]) {
+                weakest = i;
+            }
+        }
+        if (estimate > topCounts[weakest]) {
+            topAnswers[weakest] = answer;
+            topCounts[weakest] = estimate;
+        }
+    }
+
+    /** Counter of a hash in one row; each row reseeds the Murmur3 finalizer. */
+    private static int index(int hash, int row) {
+        int h = hash + row * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return row * WIDTH + (h & (WIDTH - 1));
+    }
+
+    /**
+     * Writes the sketch in a fixed layout.
+     *
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeLong(total);
+        for (int c : counters) {
+            out.writeInt(c);
+        }
+        for (int i = 0; i < TOP; i++) {
+            out.writeUTF(topAnswers[i] == null ? "" : topAnswers[i]);
+            out.writeLong(topCounts[i]);
+        }
+    }
+
+    /**
+     * Reads a sketch written by {@link #write(DataOutputStream)}.
+     *
+     * @param in source
+     * @return sketch read
+     * @throws IOException if reading fails
+     */
+    public static AnswerSketch read(DataInputStream in) throws IOException {
+        AnswerSketch s = new AnswerSketch();
+        s.total = in.readLong();
+        for (int i = 0; i < s.counters.length; i++) {
+            s.counters[i] = in.readInt();
+        }
+        for (int i = 0; i < TOP; i++) {
+            String answer = in.readUTF();
+            s.topAnswers[i] = answer.isEmpty() ? null : answer;
+            s.topCounts[i] = in.readLong();
+        }
+        return s;
+    }
+}
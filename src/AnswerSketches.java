@@ -0,0 +1,209 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Collects the wrong answers typed into TEXT and NUMERIC questions in one
+ * {@link AnswerSketch} per question, so the most common mistakes can be used to
+ * improve hints or to accept more answer variants.
+ *
+ * <p>Answers are counted in memory and merged into {@code quizapp_answers.sketch}
+ * in the user's home directory by {@link #save()}, under a file lock, so several
+ * processes can add to the same file. The location can be overridden with the
+ * {@code quizapp.sketch.file} system property.</p>
+ *
+ * @author GasTheJuice
+ */
+public class AnswerSketches {
+    private static final Path SKETCH_FILE = Paths.get(System.getProperty("quizapp.sketch.file",
+        System.getProperty("user.home") + File.separator + "quizapp_answers.sketch"));
+    private static final int MAGIC = 0x51534B32; // "QSK2", keyed by question id
+    private static final int OLD_MAGIC = 0x51534B54; // "QSKT", keyed by theme and prompt
+
+    /** Counts not yet merged into the file, keyed by question id */
+    private static final Map<String, AnswerSketch> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Counts a wrong answer of a TEXT or NUMERIC question; other types and
+     * questions generated from templates are ignored.
+     *
+     * @param question question that was answered
+     * @param answer raw answer
+     */
+    public static void recordWrong(Question question, String answer) {
+        Question.QuestionType type = question.getType();
+        if (type != Question.QuestionType.TEXT && type != Question.QuestionType.NUMERIC) {
+            return;
+        }
+        if (question instanceof QuestionTemplate.Instance) {
+            // Every instance is a new question; their wrong answers cannot be compared.
+            return;
+        }
+        String normalized = Question.normalize(answer);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        // Updates run inside the map's per-key lock, so save() never takes a sketch mid-update.
+        pending.compute(question.getId(), (k, sketch) -> {
+            AnswerSketch s = sketch != null ? sketch : new AnswerSketch();
+            s.add(normalized);
+            return s;
+        });
+    }
+
+    /**
+     * Returns the most common wrong answers of a question, from the file
+     * and from answers not saved yet.
+     *
+     * @param question question to look up
+     * @param n maximum number of answers
+     * @return most common wrong answers, most common first
+     */
+    public static List<AnswerSketch.HeavyHitter> topWrongAnswers(Question question, int n) {
+        AnswerSketch merged = new AnswerSketch();
+        try {
+            AnswerSketch saved = readFile().get(question.getId());
+            if (saved != null) {
+                merged.merge(saved);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        pending.computeIfPresent(question.getId(), (k, unsaved) -> {
+            merged.merge(unsaved);
+            return unsaved;
+        });
+        return merged.top(n);
+    }
+
+    /**
+     * Merges the answers counted since the last save into the sketch file.
+     */
+    public static synchronized void save() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        update(sketches -> {
+            for (String key : pending.keySet()) {
+                AnswerSketch delta = pending.remove(key);
+                if (delta != null) {
+                    sketches.computeIfAbsent(key, k -> new AnswerSketch()).merge(delta);
+                }
+            }
+        });
+    }
+
+    /**
+     * Moves the counts of questions whose id changed on re-import to their new
+     * id, so their wrong answers are not lost when, for example, an answer
+     * variant is added.
+     *
+     * @param renamed old id to new id, see {@link BankImporter.Result#getRenamed()}
+     */
+    public static synchronized void rename(Map<String, String> renamed) {
+        if (renamed.isEmpty()) {
+            return;
+        }
+        renamed.forEach((from, to) -> {
+            AnswerSketch unsaved = pending.remove(from);
+            if (unsaved != null) {
+                pending.merge(to, unsaved, (a, b) -> { a.merge(b); return a; });
+            }
+        });
+        update(sketches -> renamed.forEach((from, to) -> {
+            AnswerSketch moved = sketches.remove(from);
+            if (moved != null) {
+                sketches.computeIfAbsent(to, k -> new AnswerSketch()).merge(moved);
+            }
+        }));
+    }
+
+    /**
+     * Reads, changes and atomically replaces the sketch file while holding a
+     * lock on its sibling {@code .lock} file, so concurrent processes never
+     * lose each other's counts.
+     */
+    private static void update(Consumer<Map<String, AnswerSketch>> change) {
+        Path lockFile = SKETCH_FILE.resolveSibling(SKETCH_FILE.getFileName() + ".lock");
+        try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            lockChannel.lock(); // released when the channel is closed
+            Map<String, AnswerSketch> sketches = readFile();
+            change.accept(sketches);
+            Path tmp = SKETCH_FILE.resolveSibling(SKETCH_FILE.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(sketches.size());
+                for (Map.Entry<String, AnswerSketch> e : sketches.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    e.getValue().write(out);
+                }
+            }
+            Files.move(tmp, SKETCH_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static Map<String, AnswerSketch> readFile() throws IOException {
+        Map<String, AnswerSketch> sketches = new TreeMap<>();
+        if (!Files.exists(SKETCH_FILE)) {
+            return sketches;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(SKETCH_FILE)))) {
+            int magic = in.readInt();
+            if (magic == OLD_MAGIC) {
+                // Keys of the old format cannot be mapped to ids without the bank; start over.
+                System.err.println("Discarding answer sketches in the old format: " + SKETCH_FILE);
+                return sketches;
+            }
+            if (magic != MAGIC) {
+                throw new IOException("Not an answer sketch file: " + SKETCH_FILE);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                sketches.put(in.readUTF(), AnswerSketch.read(in));
+            }
+        }
+        return sketches;
+    }
+
+    /**
+     * Prints the most common wrong answers of every TEXT and NUMERIC question.
+     *
+     * @param args optional number of answers per question (defaults to 5)
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        ThemeCatalog catalog = QuestionBank.loadCatalog();
+        for (String theme : catalog.getThemes()) {
+            for (Question q : catalog.getQuestions(theme)) {
+                if (q.getType() != Question.QuestionType.TEXT && q.getType() != Question.QuestionType.NUMERIC) {
+                    continue;
+                }
+                List<AnswerSketch.HeavyHitter> top = topWrongAnswers(q, n);
+                if (top.isEmpty()) {
+                    continue;
+                }
+                System.out.println("[" + theme + "] " + q.getPrompt().lines().findFirst().orElse(""));
+                System.out.println("  accepted: " + String.join(" / ", q.getAnswers()));
+                for (AnswerSketch.HeavyHitter h : top) {
+                    System.out.printf("  %6d  %s%n", h.getCount(), h.getAnswer());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Imports a question bank into a {@link ThemeCatalog} directory, touching only
+ * what changed since the previous import.
+ *
+ * <p>Question ids ({@link Question#getId()}) and theme fingerprints are computed
+ * in parallel. A theme whose fingerprint matches the one in the existing catalog
+ * keeps its shard and is not even read. The questions of the other themes are
+ * compared with the previous ones by id: a question is added, removed, or
+ * changed when only its hint or theme differs. A removed and an added question
+ * with the same theme and prompt count as one changed question whose id was
+ * renamed, so results recorded per question id can follow it. New shards are
+ * written first, then the index, then unreferenced shards are deleted.</p>
+ *
+ * @author GasTheJuice
+ */
+public class BankImporter {
+
+    /** What an import changed */
+    public static final class Result {
+        private final List<Question> added = new ArrayList<>();
+        private final List<Question> changed = new ArrayList<>();
+        private final List<Question> removed = new ArrayList<>();
+        private final Map<String, String> renamed = new LinkedHashMap<>();
+        private int themesWritten;
+        private int themesKept;
+        private int themesDeleted;
+
+        /** @return questions that are new in the bank */
+        public List<Question> getAdded() { return added; }
+
+        /** @return new versions of questions that were edited */
+        public List<Question> getChanged() { return changed; }
+
+        /** @return questions that are no longer in the bank */
+        public List<Question> getRemoved() { return removed; }
+
+        /** @return old id to new id of changed questions whose content, and so id, changed */
+        public Map<String, String> getRenamed() { return renamed; }
+
+        /** @return number of theme shards written */
+        public int getThemesWritten() { return themesWritten; }
+
+        /** @return number of theme shards kept as they were */
+        public int getThemesKept() { return themesKept; }
+
+        /** @return number of themes no longer in the bank */
+        public int getThemesDeleted() { return themesDeleted; }
+
+        /** @return true if the import changed nothing */
+        public boolean isUnchanged() {
+            return themesWritten == 0 && themesDeleted == 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Question q : added) {
+                sb.append("+ [").append(q.getTheme()).append("] ").append(firstLine(q)).append('\n');
+            }
+            for (Question q : changed) {
+                sb.append("~ [").append(q.getTheme()).append("] ").append(firstLine(q)).append('\n');
+            }
+            for (Question q : removed) {
+                sb.append("- [").append(q.getTheme()).append("] ").append(firstLine(q)).append('\n');
+            }
+            sb.append(added.size()).append(" added, ").append(changed.size()).append(" changed, ")
+              .append(removed.size()).append(" removed; ").append(themesWritten).append(" themes written, ")
+              .append(themesKept).append(" kept, ").append(themesDeleted).append(" deleted\n");
+            return sb.toString();
+        }
+
+        private static String firstLine(Question q) {
+            return q.getPrompt().lines().findFirst().orElse("");
+        }
+    }
+
+    /**
+     * Imports a bank into a catalog directory.
+     *
+     * @param bank questions to store
+     * @param dir catalog directory, created if needed
+     * @return what changed compared to the catalog already in the directory
+     * @throws IOException if the existing catalog cannot be read or a file cannot be written
+     */
+    public static Result importBank(List<Question> bank, Path dir) throws IOException {
+        bank.parallelStream().forEach(Question::getId);
+        Map<String, List<Question>> byTheme = ThemeCatalog.groupByTheme(bank);
+        Map<String, String> fingerprints = new ConcurrentHashMap<>();
+        byTheme.entrySet().parallelStream()
+               .forEach(e -> fingerprints.put(e.getKey(), ThemeCatalog.fingerprint(e.getValue())));
+
+        ThemeCatalog previous = Files.exists(dir.resolve(ThemeCatalog.CATALOG_FILE))
+            ? ThemeCatalog.load(dir) : ThemeCatalog.of(List.of());
+        Files.createDirectories(dir);
+
+        Result result = new Result();
+        List<Question> before = new ArrayList<>();
+        List<Question> after = new ArrayList<>();
+        List<String[]> rows = new ArrayList<>();
+        Set<String> files = new HashSet<>();
+        for (Map.Entry<String, List<Question>> e : byTheme.entrySet()) {
+            String theme = e.getKey();
+            List<Question> questions = e.getValue();
+            String fingerprint = fingerprints.get(theme);
+            String file = ThemeCatalog.shardFileName(fingerprint);
+            if (fingerprint.equals(previous.getFingerprint(theme)) && Files.exists(dir.resolve(file))) {
+                result.themesKept++;
+            } else {
+                before.addAll(previousQuestions(previous, theme));
+                after.addAll(questions);
+                if (!Files.exists(dir.resolve(file))) {
+                    BankSnapshot.write(questions, dir.resolve(file));
+                }
+                result.themesWritten++;
+            }
+            rows.add(new String[] { theme, String.valueOf(questions.size()), file, fingerprint });
+            files.add(file);
+        }
+        for (String theme : previous.getThemes()) {
+            if (!byTheme.containsKey(theme)) {
+                before.addAll(previousQuestions(previous, theme));
+                result.themesDeleted++;
+            }
+        }
+        diff(before, after, result);
+
+        ThemeCatalog.writeIndex(dir, rows);
+        for (String theme : previous.getThemes()) {
+            Path old = previous.getShardFile(theme);
+            if (old != null && !files.contains(old.getFileName().toString())) {
+                try {
+                    Files.deleteIfExists(old);
+                } catch (IOException e) {
+                    // Still mapped somewhere (Windows); it is unreferenced and harmless.
+                    e.printStackTrace();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compares the old and new questions of the themes that changed. Unchanged
+     * themes are left out on both sides: nothing can move into or out of them
+     * without changing their fingerprint.
+     */
+    static void diff(List<Question> before, List<Question> after, Result result) {
+        Map<String, Question> remaining = new LinkedHashMap<>();
+        for (Question q : before) {
+            remaining.putIfAbsent(q.getId(), q);
+        }
+        for (Question q : after) {
+            Question old = remaining.remove(q.getId());
+            if (old == null) {
+                result.added.add(q);
+            } else if (!Objects.equals(old.getHint(), q.getHint()) || !Objects.equals(old.getTheme(), q.getTheme())) {
+                result.changed.add(q);
+            }
+        }
+        Map<String, Question> removedByPrompt = new HashMap<>();
+        for (Question q : remaining.values()) {
+            removedByPrompt.putIfAbsent(promptKey(q), q);
+        }
+        for (Iterator<Question> it = result.added.iterator(); it.hasNext(); ) {
+            Question q = it.next();
+            Question old = removedByPrompt.remove(promptKey(q));
+            if (old != null) {
+                it.remove();
+                remaining.remove(old.getId());
+                result.changed.add(q);
+                result.renamed.put(old.getId(), q.getId());
+            }
+        }
+        result.removed.addAll(remaining.values());
+    }
+
+    /** @return questions the theme had before the import, or none if its old shard cannot be read */
+    private static List<Question> previousQuestions(ThemeCatalog previous, String theme) {
+        try {
+            List<Question> old = previous.getQuestions(theme);
+            return old == null ? List.of() : old;
+        } catch (UncheckedIOException e) {
+            // The diff then lists the theme's questions as added; the import itself is unaffected.
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+
+    private static String promptKey(Question q) {
+        return q.getTheme() + '\u001f' + Question.normalize(q.getPrompt());
+    }
+}
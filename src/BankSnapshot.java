@@ -0,0 +1,345 @@
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary snapshot of the whole question bank.
+ * The file is memory-mapped on load and question bodies are decoded lazily,
+ * the first time each question is requested.
+ *
+ * <p>Layout (all integers big-endian):</p>
+ * <pre>
+ * header   magic, version, count, stringsStart, recordsStart
+ * index    count x (recordOffset, themeOffset)
+ * strings  deduplicated UTF-8 strings, each as length + bytes
+ * records  type, theme, prompt, hint, image, options, answers, areas
+ * </pre>
+ * String references are absolute file offsets, {@code -1} stands for null.
+ *
+ * @author GasTheJuice
+ */
+public class BankSnapshot {
+    /** Default snapshot location, next to the images folder */
+    public static final String SNAPSHOT_FILE = "bank.qbs";
+
+    private static final int MAGIC = 0x51424E4B; // "QBNK"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+    private static final int INDEX_ENTRY_SIZE = 2 * Integer.BYTES;
+    private static final int NULL_REF = -1;
+
+    private static final Question.QuestionType[] TYPES = Question.QuestionType.values();
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final Question[] decoded;
+
+    private BankSnapshot(ByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+        this.decoded = new Question[count];
+    }
+
+    /**
+     * Writes all questions into a snapshot file.
+     * The file is written to a temporary sibling first and then moved into place.
+     *
+     * @param questions questions to store
+     * @param target destination file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(List<Question> questions, Path target) throws IOException {
+        int count = questions.size();
+        int stringsStart = HEADER_SIZE + count * INDEX_ENTRY_SIZE;
+
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        DataOutputStream strings = new DataOutputStream(stringBytes);
+        Map<String, Integer> stringOffsets = new HashMap<>();
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int[] recordOffsets = new int[count];
+        int[] themeOffsets = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            Question q = questions.get(i);
+            recordOffsets[i] = records.size();
+            themeOffsets[i] = intern(q.getTheme(), strings, stringOffsets, stringsStart);
+
+            records.writeByte(q.getType().ordinal());
+            records.writeInt(themeOffsets[i]);
+            records.writeInt(intern(q.getPrompt(), strings, stringOffsets, stringsStart));
+            records.writeInt(intern(q.getHint(), strings, stringOffsets, stringsStart));
+            records.writeInt(intern(q.getImagePath(), strings, stringOffsets, stringsStart));
+            writeStringList(q.getOptions(), records, strings, stringOffsets, stringsStart);
+            writeStringList(q.getAnswers(), records, strings, stringOffsets, stringsStart);
+
+            List<Rectangle> areas = q.getCorrectAreas() == null ? List.of() : q.getCorrectAreas();
+            records.writeShort(areas.size());
+            for (Rectangle r : areas) {
+                records.writeInt(r.x);
+                records.writeInt(r.y);
+                records.writeInt(r.width);
+                records.writeInt(r.height);
+            }
+        }
+        strings.flush();
+        records.flush();
+
+        int recordsStart = stringsStart + stringBytes.size();
+        ByteBuffer head = ByteBuffer.allocate(stringsStart);
+        head.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(stringsStart).putInt(recordsStart);
+        for (int i = 0; i < count; i++) {
+            head.putInt(recordsStart + recordOffsets[i]);
+            head.putInt(themeOffsets[i]);
+        }
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            head.flip();
+            writeFully(out, head);
+            writeFully(out, ByteBuffer.wrap(stringBytes.toByteArray()));
+            writeFully(out, ByteBuffer.wrap(recordBytes.toByteArray()));
+            out.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot file into memory. The header and every index entry are
+     * validated here, so a truncated or corrupt file fails to load instead of
+     * failing later when a question is decoded. Questions are decoded on first access.
+     *
+     * @param source snapshot file
+     * @return loaded snapshot
+     * @throws IOException if the file is missing, truncated, corrupt or of an unknown version
+     */
+    public static BankSnapshot load(Path source) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            mapped = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+        }
+        if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+            throw new IOException("Not a question bank snapshot: " + source);
+        }
+        int version = mapped.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + source);
+        }
+        int count = mapped.getInt(8);
+        int stringsStart = mapped.getInt(12);
+        int recordsStart = mapped.getInt(16);
+        if (count < 0 || stringsStart != HEADER_SIZE + (long) count * INDEX_ENTRY_SIZE
+                || recordsStart < stringsStart || recordsStart > mapped.capacity()) {
+            throw new IOException("Truncated snapshot index in " + source);
+        }
+        for (int i = 0; i < count; i++) {
+            int entry = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+            int record = mapped.getInt(entry);
+            int theme = mapped.getInt(entry + Integer.BYTES);
+            if (record < recordsStart || recordEnd(mapped, record) > mapped.capacity()
+                    || theme < stringsStart || theme > recordsStart - Integer.BYTES || mapped.getInt(theme) < 0
+                    || theme + Integer.BYTES + (long) mapped.getInt(theme) > recordsStart) {
+                throw new IOException("Corrupt snapshot entry " + i + " in " + source);
+            }
+        }
+        return new BankSnapshot(mapped, count);
+    }
+
+    /** @return number of questions in the snapshot */
+    public int size() { return count; }
+
+    /**
+     * Reads only the theme of a question, without decoding the rest of it.
+     *
+     * @param index question index
+     * @return theme name
+     */
+    public String getTheme(int index) {
+        Question q = decoded[index];
+        if (q != null) {
+            return q.getTheme();
+        }
+        return readString(buffer.getInt(indexEntry(index) + Integer.BYTES));
+    }
+
+    /**
+     * Returns the question at the given index, decoding it on first access.
+     *
+     * @param index question index
+     * @return decoded question
+     */
+    public Question get(int index) {
+        Question q = decoded[index];
+        if (q == null) {
+            q = decode(buffer.getInt(indexEntry(index)));
+            decoded[index] = q;
+        }
+        return q;
+    }
+
+    /**
+     * Returns a read-only list view that decodes questions as they are accessed.
+     *
+     * @return lazy list of all questions
+     */
+    public List<Question> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Question get(int index) { return BankSnapshot.this.get(index); }
+
+            @Override
+            public int size() { return count; }
+        };
+    }
+
+    private int indexEntry(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Question " + index + " of " + count);
+        }
+        return HEADER_SIZE + index * INDEX_ENTRY_SIZE;
+    }
+
+    /**
+     * Walks the fixed-size fields and counts of a record without decoding it.
+     *
+     * @return offset just past the record, or {@link Long#MAX_VALUE} if it runs past the buffer
+     */
+    private static long recordEnd(ByteBuffer buffer, int pos) {
+        long end = pos + 1L + 4 * Integer.BYTES;
+        for (int width : new int[] {Integer.BYTES, Integer.BYTES, 4 * Integer.BYTES}) {
+            if (end + Short.BYTES > buffer.capacity()) {
+                return Long.MAX_VALUE;
+            }
+            end += Short.BYTES + Math.max(buffer.getShort((int) end), 0) * (long) width;
+        }
+        return end;
+    }
+
+    private Question decode(int pos) {
+        Question.QuestionType type = TYPES[buffer.get(pos)];
+        pos += 1;
+        String theme = readString(buffer.getInt(pos));
+        String prompt = readString(buffer.getInt(pos + 4));
+        String hint = readString(buffer.getInt(pos + 8));
+        String imagePath = readString(buffer.getInt(pos + 12));
+        pos += 16;
+
+        int optionCount = buffer.getShort(pos);
+        pos += Short.BYTES;
+        List<String> options = readStringList(pos, optionCount);
+        pos += Math.max(optionCount, 0) * Integer.BYTES;
+
+        int answerCount = buffer.getShort(pos);
+        pos += Short.BYTES;
+        List<String> answers = readStringList(pos, answerCount);
+        pos += Math.max(answerCount, 0) * Integer.BYTES;
+
+        int areaCount = buffer.getShort(pos);
+        pos += Short.BYTES;
+        List<Rectangle> areas = new ArrayList<>(areaCount);
+        for (int i = 0; i < areaCount; i++, pos += 4 * Integer.BYTES) {
+            areas.add(new Rectangle(buffer.getInt(pos), buffer.getInt(pos + 4),
+                                    buffer.getInt(pos + 8), buffer.getInt(pos + 12)));
+        }
+
+        if (imagePath == null && areas.isEmpty()) {
+            return new Question(theme, prompt, type, options, answers, hint);
+        }
+        return new Question(theme, prompt, type, options, answers, hint, imagePath, List.copyOf(areas));
+    }
+
+    private List<String> readStringList(int pos, int size) {
+        if (size < 0) {
+            return null;
+        }
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = readString(buffer.getInt(pos + i * Integer.BYTES));
+        }
+        return List.of(values);
+    }
+
+    private String readString(int offset) {
+        if (offset == NULL_REF) {
+            return null;
+        }
+        int length = buffer.getInt(offset);
+        byte[] bytes = new byte[length];
+        buffer.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int intern(String value, DataOutputStream strings,
+                              Map<String, Integer> offsets, int base) throws IOException {
+        if (value == null) {
+            return NULL_REF;
+        }
+        Integer existing = offsets.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int offset = base + strings.size();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        strings.writeInt(bytes.length);
+        strings.write(bytes);
+        offsets.put(value, offset);
+        return offset;
+    }
+
+    private static void writeStringList(List<String> values, DataOutputStream records, DataOutputStream strings,
+                                        Map<String, Integer> offsets, int base) throws IOException {
+        if (values == null) {
+            records.writeShort(NULL_REF);
+            return;
+        }
+        records.writeShort(values.size());
+        for (String v : values) {
+            records.writeInt(intern(v, strings, offsets, base));
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            out.write(src);
+        }
+    }
+
+    /**
+     * Build step entry point: writes the built-in question bank to a snapshot.
+     *
+     * @param args optional target path (defaults to {@value #SNAPSHOT_FILE})
+     */
+    public static void main(String[] args) {
+        Path target = Paths.get(args.length > 0 ? args[0] : SNAPSHOT_FILE);
+        List<Question> questions = QuestionBank.getAllQuestions();
+        QuestionValidator.Report report = QuestionValidator.validateAll(questions);
+        System.out.print(report);
+        if (report.hasErrors()) {
+            System.err.println("Snapshot not written, fix the errors above first.");
+            System.exit(1);
+        }
+        try {
+            write(questions, target);
+            System.out.println("Wrote " + questions.size() + " questions to " + target);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+
+/**
+ * Multiple choice question shown as check boxes; all correct options must be selected.
+ * The answer is the mask of the selected options.
+ *
+ * @author GasTheJuice
+ */
+public class CheckboxQuestionType implements QuestionTypeProvider {
+
+    @Override
+    public Question.QuestionType type() { return Question.QuestionType.CHECKBOX; }
+
+    @Override
+    public QuestionTypeHandler create() { return new Handler(); }
+
+    static final class Handler implements QuestionTypeHandler {
+        @Override
+        public AnswerView render(Question question) {
+            JPanel center = QuestionTypes.column();
+            CompiledQuestion compiled = question.getCompiled();
+            List<AbstractButton> optionButtons = new ArrayList<>();
+            for (String opt : question.getOptions()) {
+                JCheckBox cb = new JCheckBox(opt);
+                optionButtons.add(cb);
+                center.add(cb);
+            }
+            return new AnswerView() {
+                @Override
+                public JComponent getComponent() { return center; }
+
+                @Override
+                public String getUserAnswer() {
+                    long mask = 0;
+                    for (int i = 0; i < optionButtons.size(); i++) {
+                        if (optionButtons.get(i).isSelected()) {
+                            mask |= compiled.getOptionMask(i);
+                        }
+                    }
+                    return CompiledQuestion.encodeMask(mask);
+                }
+            };
+        }
+
+        @Override
+        public boolean grade(Question question, String answer) {
+            return CompiledQuestion.decodeMask(answer) == question.getCompiled().getAnswerMask();
+        }
+
+        @Override
+        public String describe(Question question, String answer) {
+            return QuestionTypes.describeChoices(question, answer);
+        }
+    }
+}
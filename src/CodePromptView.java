@@ -0,0 +1,307 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+
+/**
+ * Read-only, syntax-highlighted view of a C code prompt.
+ * The prompt is tokenized once per question and the wrapped lines are cached
+ * per question and column count, so resizing and scrolling only repaint runs
+ * that are already laid out.
+ *
+ * <p>All caches are accessed on the EDT only.</p>
+ *
+ * @author GasTheJuice
+ */
+public class CodePromptView extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    private static final Font CODE_FONT = new Font("Monospaced", Font.PLAIN, 14);
+    private static final int MAX_LAYOUTS_PER_QUESTION = 8;
+
+    private static final byte PLAIN = 0, KEYWORD = 1, NUMBER = 2, STRING = 3, COMMENT = 4, PUNCT = 5;
+
+    private static final Set<String> KEYWORDS = Set.of(
+        "auto", "break", "case", "char", "const", "continue", "default", "do", "double",
+        "else", "enum", "extern", "float", "for", "goto", "if", "int", "long", "register",
+        "return", "short", "signed", "sizeof", "static", "struct", "switch", "typedef",
+        "union", "unsigned", "void", "volatile", "while", "NULL");
+
+    private static final Color[] LIGHT = {
+        null, new Color(0x0033B3), new Color(0x1750EB), new Color(0x067D17), new Color(0x8C8C8C), new Color(0x871094)
+    };
+    private static final Color[] DARK = {
+        null, new Color(0xCC7832), new Color(0x6897BB), new Color(0x6A8759), new Color(0x808080), new Color(0xC77DBB)
+    };
+
+    /** Tokenized prompts, released together with their questions */
+    private static final Map<Question, Tokenized> CACHE = new WeakHashMap<>();
+
+    private final Question question;
+    private final Tokenized tokenized;
+
+    /** Forgets all tokenized prompts, so benchmarks can measure a first display. */
+    static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Creates a view for the prompt of the given question.
+     *
+     * @param question question whose prompt is displayed
+     */
+    public CodePromptView(Question question) {
+        this.question = question;
+        this.tokenized = CACHE.computeIfAbsent(question, q -> tokenize(q.getPrompt()));
+        setFont(CODE_FONT);
+        setOpaque(false);
+        setFocusable(false);
+    }
+
+    /**
+     * Heuristic used by {@link QuestionPanel} to decide between this view and a plain text area.
+     *
+     * @param prompt question prompt
+     * @return true if the prompt contains a multi-line or statement-like snippet
+     */
+    public static boolean looksLikeCode(String prompt) {
+        return prompt != null && (prompt.indexOf('\n') >= 0 || prompt.indexOf(';') >= 0);
+    }
+
+    /** @return the question whose prompt is shown */
+    public Question getQuestion() { return question; }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        FontMetrics fm = getFontMetrics(getFont());
+        Insets in = getInsets();
+        int columns = getWidth() > 0 ? columnsFor(getWidth(), fm) : tokenized.longestLine;
+        int lines = layout(columns).length;
+        return new Dimension(in.left + in.right + tokenized.longestLine * fm.charWidth('m'),
+                             in.top + in.bottom + lines * fm.getHeight());
+    }
+
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        FontMetrics fm = getFontMetrics(getFont());
+        boolean reflow = getWidth() > 0 && width != getWidth()
+            && layout(columnsFor(width, fm)).length != layout(columnsFor(getWidth(), fm)).length;
+        super.setBounds(x, y, width, height);
+        if (reflow) {
+            revalidate();
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setFont(getFont());
+            FontMetrics fm = g2.getFontMetrics();
+            Insets in = getInsets();
+            int lineHeight = fm.getHeight();
+            int charWidth = fm.charWidth('m');
+            VisualLine[] lines = layout(columnsFor(getWidth(), fm));
+
+            Color foreground = getForeground() != null ? getForeground() : UIManager.getColor("Label.foreground");
+            Color[] palette = isDark(UIManager.getColor("Panel.background")) ? DARK : LIGHT;
+
+            Rectangle clip = g2.getClipBounds();
+            int first = 0;
+            int last = lines.length - 1;
+            if (clip != null) {
+                first = Math.max(0, (clip.y - in.top) / lineHeight);
+                last = Math.min(last, (clip.y + clip.height - in.top) / lineHeight);
+            }
+            for (int i = first; i <= last; i++) {
+                VisualLine line = lines[i];
+                int baseline = in.top + i * lineHeight + fm.getAscent();
+                for (int r = 0; r < line.texts.length; r++) {
+                    Color c = palette[line.kinds[r]];
+                    g2.setColor(c != null ? c : foreground);
+                    g2.drawString(line.texts[r], in.left + line.columns[r] * charWidth, baseline);
+                }
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private int columnsFor(int width, FontMetrics fm) {
+        Insets in = getInsets();
+        return Math.max(1, (width - in.left - in.right) / fm.charWidth('m'));
+    }
+
+    private VisualLine[] layout(int columns) {
+        VisualLine[] cached = tokenized.layouts.get(columns);
+        if (cached == null) {
+            if (tokenized.layouts.size() >= MAX_LAYOUTS_PER_QUESTION) {
+                tokenized.layouts.clear();
+            }
+            cached = wrap(tokenized, columns);
+            tokenized.layouts.put(columns, cached);
+        }
+        return cached;
+    }
+
+    private static boolean isDark(Color background) {
+        if (background == null) {
+            return false;
+        }
+        return (background.getRed() * 299 + background.getGreen() * 587 + background.getBlue() * 114) / 1000 < 128;
+    }
+
+    /** Splits each logical line into visual lines no wider than {@code columns}. */
+    private static VisualLine[] wrap(Tokenized t, int columns) {
+        List<VisualLine> out = new ArrayList<>();
+        for (int l = 0; l < t.lines.length; l++) {
+            String text = t.lines[l];
+            int start = 0;
+            do {
+                int end = Math.min(text.length(), start + columns);
+                if (end < text.length()) {
+                    int space = text.lastIndexOf(' ', end);
+                    if (space > start) {
+                        end = space + 1;
+                    }
+                }
+                out.add(slice(text, t.spans[l], start, end));
+                start = end;
+            } while (start < text.length());
+        }
+        return out.toArray(new VisualLine[0]);
+    }
+
+    private static VisualLine slice(String text, int[] spans, int from, int to) {
+        List<String> texts = new ArrayList<>();
+        List<Integer> cols = new ArrayList<>();
+        List<Byte> kinds = new ArrayList<>();
+        for (int s = 0; s < spans.length; s += 3) {
+            int a = Math.max(from, spans[s]);
+            int b = Math.min(to, spans[s + 1]);
+            if (a < b) {
+                texts.add(text.substring(a, b));
+                cols.add(a - from);
+                kinds.add((byte) spans[s + 2]);
+            }
+        }
+        VisualLine line = new VisualLine(texts.size());
+        for (int i = 0; i < line.texts.length; i++) {
+            line.texts[i] = texts.get(i);
+            line.columns[i] = cols.get(i);
+            line.kinds[i] = kinds.get(i);
+        }
+        return line;
+    }
+
+    /**
+     * Tokenizes a prompt line by line into (start, end, kind) spans.
+     * Block comments may span several lines.
+     */
+    private static Tokenized tokenize(String prompt) {
+        String[] lines = prompt.replace("\t", "    ").split("\n", -1);
+        int[][] spans = new int[lines.length][];
+        boolean inComment = false;
+        int longest = 1;
+        for (int l = 0; l < lines.length; l++) {
+            String s = lines[l];
+            longest = Math.max(longest, s.length());
+            List<Integer> out = new ArrayList<>();
+            int i = 0;
+            while (i < s.length()) {
+                int start = i;
+                char c = s.charAt(i);
+                byte kind;
+                if (inComment) {
+                    int close = s.indexOf("*/", i);
+                    i = close < 0 ? s.length() : close + 2;
+                    inComment = close < 0;
+                    kind = COMMENT;
+                } else if (c == '/' && i + 1 < s.length() && s.charAt(i + 1) == '*') {
+                    int close = s.indexOf("*/", i + 2);
+                    i = close < 0 ? s.length() : close + 2;
+                    inComment = close < 0;
+                    kind = COMMENT;
+                } else if (c == '/' && i + 1 < s.length() && s.charAt(i + 1) == '/') {
+                    i = s.length();
+                    kind = COMMENT;
+                } else if (c == '"' || c == '\'') {
+                    i++;
+                    while (i < s.length() && s.charAt(i) != c) {
+                        i += s.charAt(i) == '\\' ? 2 : 1;
+                    }
+                    i = Math.min(s.length(), i + 1);
+                    kind = STRING;
+                } else if (Character.isDigit(c)) {
+                    while (i < s.length() && (Character.isLetterOrDigit(s.charAt(i)) || s.charAt(i) == '.')) {
+                        i++;
+                    }
+                    kind = NUMBER;
+                } else if (Character.isLetter(c) || c == '_' || c == '#') {
+                    i++;
+                    while (i < s.length() && (Character.isLetterOrDigit(s.charAt(i)) || s.charAt(i) == '_')) {
+                        i++;
+                    }
+                    kind = KEYWORDS.contains(s.substring(start, i)) || c == '#' ? KEYWORD : PLAIN;
+                } else if (Character.isWhitespace(c)) {
+                    while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+                        i++;
+                    }
+                    kind = PLAIN;
+                } else {
+                    i++;
+                    kind = "{}()[];,".indexOf(c) >= 0 || c == '\\' ? PLAIN : PUNCT;
+                }
+                out.add(start);
+                out.add(i);
+                out.add((int) kind);
+            }
+            spans[l] = out.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new Tokenized(lines, spans, longest);
+    }
+
+    /** Token spans of a prompt plus its wrapped layouts keyed by column count */
+    private static final class Tokenized {
+        final String[] lines;
+        final int[][] spans;
+        final int longestLine;
+        final Map<Integer, VisualLine[]> layouts = new HashMap<>();
+
+        Tokenized(String[] lines, int[][] spans, int longestLine) {
+            this.lines = lines;
+            this.spans = spans;
+            this.longestLine = longestLine;
+        }
+    }
+
+    /** One painted row: styled runs with their starting column */
+    private static final class VisualLine {
+        final String[] texts;
+        final int[] columns;
+        final byte[] kinds;
+
+        VisualLine(int runs) {
+            texts = new String[runs];
+            columns = new int[runs];
+            kinds = new byte[runs];
+        }
+    }
+}
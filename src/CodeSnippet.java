@@ -0,0 +1,671 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tiny interpreter for the C snippets shown in template questions. A snippet
+ * is parsed once into a tree of nodes with variables resolved to slots; running
+ * it only walks the tree, so evaluating an instance takes microseconds.
+ *
+ * <p>Supported: {@code int} variables, integer literals, the usual arithmetic,
+ * bitwise, comparison, logical, ternary and (compound) assignment operators,
+ * pre/post increment and decrement, {@code if/else}, {@code while},
+ * {@code do/while}, {@code for}, {@code break}, {@code continue}, blocks,
+ * comments and {@code printf} with {@code %d}. Arithmetic is 32-bit like C's
+ * {@code int}. Template parameters are written {@code {name}}, either as an
+ * operand (an integer parameter) or as a binary operator (a choice parameter
+ * whose alternatives all bind equally tight).</p>
+ *
+ * <p>Running a snippet fails with {@link EvalException} on division by zero,
+ * out-of-range shifts or when it takes more than {@value #MAX_STEPS} steps,
+ * so templates can reject parameter values that make no sense.</p>
+ *
+ * @author GasTheJuice
+ */
+final class CodeSnippet {
+    /** Statements and loop iterations a run may take */
+    static final int MAX_STEPS = 10_000;
+
+    /** Thrown when a run has no well-defined result */
+    static final class EvalException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        EvalException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /** Mutable state of one run */
+    static final class Frame {
+        final int[] vars;
+        final int[] params;
+        final StringBuilder out = new StringBuilder();
+        int steps;
+
+        Frame(int vars, int[] params) {
+            this.vars = new int[vars];
+            this.params = params;
+        }
+
+        void step() {
+            if (++steps > MAX_STEPS) {
+                throw new EvalException("More than " + MAX_STEPS + " steps");
+            }
+        }
+    }
+
+    interface Expr {
+        int eval(Frame f);
+    }
+
+    private interface Stmt {
+        /** @return {@link #NORMAL}, {@link #BREAK} or {@link #CONTINUE} */
+        int exec(Frame f);
+    }
+
+    private static final int NORMAL = 0;
+    private static final int BREAK = 1;
+    private static final int CONTINUE = 2;
+
+    /** Binary operators, loosest first; operators on one line bind equally tight. */
+    private static final String[][] LEVELS = {
+        { "||" }, { "&&" }, { "|" }, { "^" }, { "&" }, { "==", "!=" },
+        { "<", "<=", ">", ">=" }, { "<<", ">>" }, { "+", "-" }, { "*", "/", "%" },
+    };
+    private static final String[] ASSIGN = { "=", "+=", "-=", "*=", "/=", "%=", "<<=", ">>=", "&=", "|=", "^=" };
+    private static final String[] SYMBOLS = {
+        "<<=", ">>=", "++", "--", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "==", "!=", "<=", ">=",
+        "&&", "||", "<<", ">>", "+", "-", "*", "/", "%", "<", ">", "=", "!", "~", "&", "|", "^", "?", ":",
+        "(", ")", "{", "}", ";", ",",
+    };
+
+    private final Stmt body;
+    private final Map<String, Integer> slots;
+
+    private CodeSnippet(Stmt body, Map<String, Integer> slots) {
+        this.body = body;
+        this.slots = slots;
+    }
+
+    /**
+     * Parses a snippet.
+     *
+     * @param code C source, with parameters written {@code {name}}
+     * @param params parameter names in order; a parameter's value is its position in {@code choices}
+     *               or, for integer parameters, the integer itself
+     * @param choices alternatives of each parameter, null for integer parameters
+     * @return parsed snippet
+     * @throws IllegalArgumentException if the snippet cannot be parsed
+     */
+    static CodeSnippet compile(String code, List<String> params, List<String[]> choices) {
+        Parser p = new Parser(tokenize(code, params), params, choices);
+        List<Stmt> stmts = new ArrayList<>();
+        while (!p.atEnd()) {
+            stmts.add(p.statement());
+        }
+        return new CodeSnippet(block(stmts), p.slots);
+    }
+
+    /**
+     * Parses an expression over the variables of this snippet, to be
+     * evaluated on the frame of a finished run.
+     *
+     * @param expression C expression
+     * @param params parameter names, as given to {@link #compile}
+     * @param choices parameter alternatives, as given to {@link #compile}
+     * @return parsed expression
+     * @throws IllegalArgumentException if it cannot be parsed or uses unknown variables
+     */
+    Expr compileExpression(String expression, List<String> params, List<String[]> choices) {
+        Parser p = new Parser(tokenize(expression, params), params, choices);
+        p.slots.putAll(slots);
+        p.frozen = true;
+        Expr e = p.expression();
+        if (!p.atEnd()) {
+            throw new IllegalArgumentException("Unexpected '" + p.peek() + "' in " + expression);
+        }
+        return e;
+    }
+
+    /**
+     * Runs the snippet.
+     *
+     * @param params parameter values
+     * @return frame holding the output and final variables
+     * @throws EvalException if the run has no well-defined result
+     */
+    Frame run(int[] params) {
+        Frame f = new Frame(slots.size(), params);
+        body.exec(f);
+        return f;
+    }
+
+    // ---- tokenizer ----
+
+    /** Parameters become a single token {@code {name}}; everything else is split as in C. */
+    private static List<String> tokenize(String code, List<String> params) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < code.length()) {
+            char c = code.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (code.startsWith("//", i)) {
+                int end = code.indexOf('\n', i);
+                i = end < 0 ? code.length() : end;
+            } else if (code.startsWith("/*", i)) {
+                int end = code.indexOf("*/", i + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated comment");
+                }
+                i = end + 2;
+            } else if (c == '{' && paramAt(code, i, params) != null) {
+                String name = paramAt(code, i, params);
+                tokens.add("{" + name + "}");
+                i += name.length() + 2;
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < code.length() && (Character.isLetterOrDigit(code.charAt(i)) || code.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(code.substring(start, i));
+            } else if (Character.isDigit(c)) {
+                int start = i;
+                while (i < code.length() && Character.isDigit(code.charAt(i))) {
+                    i++;
+                }
+                tokens.add(code.substring(start, i));
+            } else if (c == '"') {
+                int start = i++;
+                while (i < code.length() && code.charAt(i) != '"') {
+                    i += code.charAt(i) == '\\' ? 2 : 1;
+                }
+                if (i >= code.length()) {
+                    throw new IllegalArgumentException("Unterminated string");
+                }
+                tokens.add(code.substring(start, ++i));
+            } else {
+                String symbol = null;
+                for (String s : SYMBOLS) {
+                    if (code.startsWith(s, i)) {
+                        symbol = s;
+                        break;
+                    }
+                }
+                if (symbol == null) {
+                    throw new IllegalArgumentException("Unexpected character '" + c + "'");
+                }
+                tokens.add(symbol);
+                i += symbol.length();
+            }
+        }
+        return tokens;
+    }
+
+    private static String paramAt(String code, int i, List<String> params) {
+        for (String name : params) {
+            if (code.startsWith("{" + name + "}", i)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    // ---- parser ----
+
+    private static final class Parser {
+        final List<String> tokens;
+        final List<String> params;
+        final List<String[]> choices;
+        final Map<String, Integer> slots = new LinkedHashMap<>();
+        boolean frozen;
+        int pos;
+
+        Parser(List<String> tokens, List<String> params, List<String[]> choices) {
+            this.tokens = tokens;
+            this.params = params;
+            this.choices = choices;
+        }
+
+        boolean atEnd() { return pos >= tokens.size(); }
+
+        String peek() { return atEnd() ? "<end>" : tokens.get(pos); }
+
+        boolean accept(String token) {
+            if (!atEnd() && tokens.get(pos).equals(token)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(String token) {
+            if (!accept(token)) {
+                throw new IllegalArgumentException("Expected '" + token + "' but found '" + peek() + "'");
+            }
+        }
+
+        String next() {
+            if (atEnd()) {
+                throw new IllegalArgumentException("Unexpected end of code");
+            }
+            return tokens.get(pos++);
+        }
+
+        int slot(String name, boolean declare) {
+            Integer slot = slots.get(name);
+            if (slot == null) {
+                if (!declare || frozen) {
+                    throw new IllegalArgumentException("Unknown variable '" + name + "'");
+                }
+                slot = slots.size();
+                slots.put(name, slot);
+            }
+            return slot;
+        }
+
+        /** @return index of the parameter a token refers to, or -1 */
+        int param(String token) {
+            if (token.length() > 2 && token.startsWith("{") && token.endsWith("}")) {
+                return params.indexOf(token.substring(1, token.length() - 1));
+            }
+            return -1;
+        }
+
+        Stmt statement() {
+            if (accept("{")) {
+                List<Stmt> stmts = new ArrayList<>();
+                while (!accept("}")) {
+                    stmts.add(statement());
+                }
+                return block(stmts);
+            }
+            if (accept(";")) {
+                return f -> NORMAL;
+            }
+            if (accept("int")) {
+                Stmt decl = declaration();
+                expect(";");
+                return decl;
+            }
+            if (accept("if")) {
+                expect("(");
+                Expr cond = expression();
+                expect(")");
+                Stmt then = statement();
+                Stmt otherwise = accept("else") ? statement() : null;
+                return f -> {
+                    f.step();
+                    if (cond.eval(f) != 0) {
+                        return then.exec(f);
+                    }
+                    return otherwise == null ? NORMAL : otherwise.exec(f);
+                };
+            }
+            if (accept("while")) {
+                expect("(");
+                Expr cond = expression();
+                expect(")");
+                return loop(null, cond, null, statement(), false);
+            }
+            if (accept("do")) {
+                Stmt body = statement();
+                expect("while");
+                expect("(");
+                Expr cond = expression();
+                expect(")");
+                expect(";");
+                return loop(null, cond, null, body, true);
+            }
+            if (accept("for")) {
+                expect("(");
+                Stmt init = null;
+                if (accept("int")) {
+                    init = declaration();
+                } else if (!peek().equals(";")) {
+                    Expr e = expression();
+                    init = f -> { e.eval(f); return NORMAL; };
+                }
+                expect(";");
+                Expr cond = peek().equals(";") ? f -> 1 : expression();
+                expect(";");
+                Expr step = peek().equals(")") ? null : expression();
+                expect(")");
+                return loop(init, cond, step, statement(), false);
+            }
+            if (accept("break")) {
+                expect(";");
+                return f -> BREAK;
+            }
+            if (accept("continue")) {
+                expect(";");
+                return f -> CONTINUE;
+            }
+            if (accept("printf")) {
+                Stmt print = printf();
+                expect(";");
+                return print;
+            }
+            Expr e = expression();
+            expect(";");
+            return f -> {
+                f.step();
+                e.eval(f);
+                return NORMAL;
+            };
+        }
+
+        Stmt declaration() {
+            List<Stmt> parts = new ArrayList<>();
+            do {
+                int slot = slot(next(), true);
+                Expr init = accept("=") ? assignment() : f -> 0;
+                parts.add(f -> {
+                    f.vars[slot] = init.eval(f);
+                    return NORMAL;
+                });
+            } while (accept(","));
+            return block(parts);
+        }
+
+        Stmt printf() {
+            expect("(");
+            String literal = next();
+            if (!literal.startsWith("\"")) {
+                throw new IllegalArgumentException("printf needs a format string");
+            }
+            String format = unescape(literal.substring(1, literal.length() - 1));
+            List<Expr> args = new ArrayList<>();
+            while (accept(",")) {
+                args.add(assignment());
+            }
+            expect(")");
+            Expr[] values = args.toArray(new Expr[0]);
+            return f -> {
+                f.step();
+                int arg = 0;
+                for (int i = 0; i < format.length(); i++) {
+                    char c = format.charAt(i);
+                    if (c == '%' && i + 1 < format.length()) {
+                        char conv = format.charAt(++i);
+                        if (conv == '%') {
+                            f.out.append('%');
+                        } else if (conv == 'd' || conv == 'i') {
+                            if (arg >= values.length) {
+                                throw new EvalException("Missing printf argument");
+                            }
+                            f.out.append(values[arg++].eval(f));
+                        } else {
+                            throw new EvalException("Unsupported conversion %" + conv);
+                        }
+                    } else {
+                        f.out.append(c);
+                    }
+                }
+                return NORMAL;
+            };
+        }
+
+        Expr expression() {
+            Expr e = assignment();
+            while (accept(",")) {
+                Expr left = e;
+                Expr right = assignment();
+                e = f -> {
+                    left.eval(f);
+                    return right.eval(f);
+                };
+            }
+            return e;
+        }
+
+        Expr assignment() {
+            int start = pos;
+            if (!atEnd() && isIdentifier(peek())) {
+                String name = next();
+                for (String op : ASSIGN) {
+                    if (accept(op)) {
+                        int slot = slot(name, false);
+                        Expr value = assignment();
+                        if (op.equals("=")) {
+                            return f -> f.vars[slot] = value.eval(f);
+                        }
+                        String binary = op.substring(0, op.length() - 1);
+                        return f -> f.vars[slot] = apply(binary, f.vars[slot], value.eval(f));
+                    }
+                }
+                pos = start;
+            }
+            return ternary();
+        }
+
+        Expr ternary() {
+            Expr cond = binary(0);
+            if (accept("?")) {
+                Expr then = expression();
+                expect(":");
+                Expr otherwise = ternary();
+                return f -> cond.eval(f) != 0 ? then.eval(f) : otherwise.eval(f);
+            }
+            return cond;
+        }
+
+        Expr binary(int level) {
+            if (level == LEVELS.length) {
+                return unary();
+            }
+            Expr left = binary(level + 1);
+            while (true) {
+                String op = operatorAt(level);
+                if (op == null) {
+                    return left;
+                }
+                Expr l = left;
+                Expr r = binary(level + 1);
+                int p = param(op);
+                if (p >= 0) {
+                    String[] alternatives = choices.get(p);
+                    left = f -> combine(alternatives[f.params[p]], l, r, f);
+                } else {
+                    left = f -> combine(op, l, r, f);
+                }
+            }
+        }
+
+        /** Consumes a binary operator of a level, or a parameter whose alternatives are all of that level. */
+        String operatorAt(int level) {
+            if (atEnd()) {
+                return null;
+            }
+            String token = peek();
+            int p = param(token);
+            if (p >= 0) {
+                String[] alternatives = choices.get(p);
+                if (alternatives == null || levelOf(alternatives[0]) != level) {
+                    return null;
+                }
+                for (String alternative : alternatives) {
+                    if (levelOf(alternative) != level) {
+                        throw new IllegalArgumentException("Alternatives of {" + params.get(p)
+                            + "} must bind equally tight");
+                    }
+                }
+                pos++;
+                return token;
+            }
+            for (String op : LEVELS[level]) {
+                if (op.equals(token)) {
+                    pos++;
+                    return op;
+                }
+            }
+            return null;
+        }
+
+        Expr unary() {
+            if (accept("!")) {
+                Expr e = unary();
+                return f -> e.eval(f) == 0 ? 1 : 0;
+            }
+            if (accept("~")) {
+                Expr e = unary();
+                return f -> ~e.eval(f);
+            }
+            if (accept("-")) {
+                Expr e = unary();
+                return f -> -e.eval(f);
+            }
+            if (accept("+")) {
+                return unary();
+            }
+            if (accept("++") || accept("--")) {
+                int delta = tokens.get(pos - 1).equals("++") ? 1 : -1;
+                int slot = slot(next(), false);
+                return f -> f.vars[slot] += delta;
+            }
+            return postfix();
+        }
+
+        Expr postfix() {
+            String token = next();
+            if (token.equals("(")) {
+                Expr e = expression();
+                expect(")");
+                return e;
+            }
+            int p = param(token);
+            if (p >= 0) {
+                if (choices.get(p) != null) {
+                    throw new IllegalArgumentException("{" + params.get(p) + "} is an operator, not a value");
+                }
+                return f -> f.params[p];
+            }
+            if (Character.isDigit(token.charAt(0))) {
+                int value = Integer.parseInt(token);
+                return f -> value;
+            }
+            if (!isIdentifier(token)) {
+                throw new IllegalArgumentException("Unexpected '" + token + "'");
+            }
+            int slot = slot(token, false);
+            if (accept("++")) {
+                return f -> f.vars[slot]++;
+            }
+            if (accept("--")) {
+                return f -> f.vars[slot]--;
+            }
+            return f -> f.vars[slot];
+        }
+    }
+
+    // ---- runtime ----
+
+    private static Stmt block(List<Stmt> stmts) {
+        Stmt[] list = stmts.toArray(new Stmt[0]);
+        return f -> {
+            for (Stmt s : list) {
+                int status = s.exec(f);
+                if (status != NORMAL) {
+                    return status;
+                }
+            }
+            return NORMAL;
+        };
+    }
+
+    private static Stmt loop(Stmt init, Expr cond, Expr step, Stmt body, boolean testAfter) {
+        return f -> {
+            if (init != null) {
+                init.exec(f);
+            }
+            while (testAfter || cond.eval(f) != 0) {
+                f.step();
+                if (body.exec(f) == BREAK) {
+                    break;
+                }
+                if (step != null) {
+                    step.eval(f);
+                }
+                if (testAfter && cond.eval(f) == 0) {
+                    break;
+                }
+            }
+            return NORMAL;
+        };
+    }
+
+    private static int combine(String op, Expr l, Expr r, Frame f) {
+        switch (op) {
+            case "&&":
+                return l.eval(f) != 0 && r.eval(f) != 0 ? 1 : 0;
+            case "||":
+                return l.eval(f) != 0 || r.eval(f) != 0 ? 1 : 0;
+            default:
+                return apply(op, l.eval(f), r.eval(f));
+        }
+    }
+
+    private static int apply(String op, int a, int b) {
+        switch (op) {
+            case "+": return a + b;
+            case "-": return a - b;
+            case "*": return a * b;
+            case "/":
+                if (b == 0) {
+                    throw new EvalException("Division by zero");
+                }
+                return a / b;
+            case "%":
+                if (b == 0) {
+                    throw new EvalException("Division by zero");
+                }
+                return a % b;
+            case "<<":
+            case ">>":
+                if (b < 0 || b > 31) {
+                    throw new EvalException("Shift by " + b);
+                }
+                return op.equals("<<") ? a << b : a >> b;
+            case "&": return a & b;
+            case "|": return a | b;
+            case "^": return a ^ b;
+            case "==": return a == b ? 1 : 0;
+            case "!=": return a != b ? 1 : 0;
+            case "<": return a < b ? 1 : 0;
+            case "<=": return a <= b ? 1 : 0;
+            case ">": return a > b ? 1 : 0;
+            case ">=": return a >= b ? 1 : 0;
+            default: throw new IllegalArgumentException("Unknown operator " + op);
+        }
+    }
+
+    private static int levelOf(String op) {
+        for (int level = 0; level < LEVELS.length; level++) {
+            for (String candidate : LEVELS[level]) {
+                if (candidate.equals(op)) {
+                    return level;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isIdentifier(String token) {
+        return (Character.isLetter(token.charAt(0)) || token.charAt(0) == '_') && !token.equals("int");
+    }
+
+    private static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char e = s.charAt(++i);
+                sb.append(e == 'n' ? '\n' : e == 't' ? '\t' : e);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
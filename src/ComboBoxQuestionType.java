@@ -0,0 +1,52 @@
+import java.awt.Dimension;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+
+/**
+ * Single choice question shown as a drop-down list.
+ * The answer is the mask of the selected option.
+ *
+ * @author GasTheJuice
+ */
+public class ComboBoxQuestionType implements QuestionTypeProvider {
+
+    @Override
+    public Question.QuestionType type() { return Question.QuestionType.COMBOBOX; }
+
+    @Override
+    public QuestionTypeHandler create() { return new Handler(); }
+
+    static final class Handler implements QuestionTypeHandler {
+        @Override
+        public AnswerView render(Question question) {
+            JPanel center = QuestionTypes.column();
+            JComboBox<String> combo = new JComboBox<>();
+            for (String opt : question.getOptions()) {
+                combo.addItem(opt);
+            }
+            combo.setMaximumSize(new Dimension(Integer.MAX_VALUE, combo.getPreferredSize().height));
+            center.add(combo);
+            return new AnswerView() {
+                @Override
+                public JComponent getComponent() { return center; }
+
+                @Override
+                public String getUserAnswer() {
+                    return CompiledQuestion.encodeMask(question.getCompiled().getOptionMask(combo.getSelectedIndex()));
+                }
+            };
+        }
+
+        @Override
+        public boolean grade(Question question, String answer) {
+            long selected = CompiledQuestion.decodeMask(answer);
+            return Long.bitCount(selected) == 1 && (selected & question.getCompiled().getAnswerMask()) != 0;
+        }
+
+        @Override
+        public String describe(Question question, String answer) {
+            return QuestionTypes.describeChoices(question, answer);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.Map;
+
+/**
+ * Parsed, validated form of a {@link Question}, built once at load time by
+ * {@link QuestionValidator} so rendering and grading never parse strings again.
+ * Fields that do not apply to the question's type keep their defaults.
+ *
+ * @author GasTheJuice
+ */
+public final class CompiledQuestion {
+    /** True if the question passed validation without errors */
+    final boolean valid;
+    /** Normalized option text to option index (choice and slider types) */
+    final Map<String, Integer> optionIndex;
+    /** Indexes of the correct options (choice types) */
+    final int[] answerIndexes;
+    /** Bit of each option; duplicate options share the bit of their first occurrence (choice types) */
+    final long[] optionMasks;
+    /** Bits of the correct options, compared with the answer mask when grading (choice types) */
+    final long answerMask;
+    /** Slider range and start value */
+    final int sliderMin, sliderMax, sliderInitial;
+    /** Accepted slider values, in the order of the answers that parse (SLIDER) */
+    final int[] sliderAnswers;
+    /** First accepted numeric answer (NUMERIC) */
+    final double numericAnswer;
+    /** Verified image size (IMAGE_CLICK), -1 if unknown */
+    final int imageWidth, imageHeight;
+
+    CompiledQuestion(boolean valid, Map<String, Integer> optionIndex, int[] answerIndexes,
+                     long[] optionMasks, long answerMask,
+                     int sliderMin, int sliderMax, int sliderInitial, int[] sliderAnswers, double numericAnswer,
+                     int imageWidth, int imageHeight) {
+        this.valid = valid;
+        this.optionIndex = optionIndex;
+        this.answerIndexes = answerIndexes;
+        this.optionMasks = optionMasks;
+        this.answerMask = answerMask;
+        this.sliderMin = sliderMin;
+        this.sliderMax = sliderMax;
+        this.sliderInitial = sliderInitial;
+        this.sliderAnswers = sliderAnswers;
+        this.numericAnswer = numericAnswer;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+    }
+
+    /** @return true if the question passed validation without errors */
+    public boolean isValid() { return valid; }
+
+    /** @return slider minimum */
+    public int getSliderMin() { return sliderMin; }
+
+    /** @return slider maximum */
+    public int getSliderMax() { return sliderMax; }
+
+    /** @return slider start value, clamped to the range */
+    public int getSliderInitial() { return sliderInitial; }
+
+    /**
+     * @param value slider value
+     * @return true if the value is one of the accepted slider answers
+     */
+    public boolean isSliderAnswer(int value) {
+        for (int a : sliderAnswers) {
+            if (a == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return first accepted numeric answer, NaN if not numeric */
+    public double getNumericAnswer() { return numericAnswer; }
+
+    /** @return indexes of the correct options, empty for non-choice types */
+    public int[] getAnswerIndexes() { return answerIndexes.clone(); }
+
+    /** @return mask of the correct options, 0 for non-choice types */
+    public long getAnswerMask() { return answerMask; }
+
+    /**
+     * Returns the bit standing for an option in answer masks.
+     *
+     * @param option option index
+     * @return the option's bit, or 0 if there is no such option
+     */
+    public long getOptionMask(int option) {
+        return option >= 0 && option < optionMasks.length ? optionMasks[option] : 0;
+    }
+
+    /**
+     * Encodes selected options in the string form choice answers are stored in.
+     *
+     * @param mask bits of the selected options
+     * @return the mask in decimal, empty if nothing is selected
+     */
+    public static String encodeMask(long mask) {
+        return mask == 0 ? "" : Long.toString(mask);
+    }
+
+    /**
+     * Decodes a choice answer produced by {@link #encodeMask(long)}.
+     *
+     * @param answer stored answer
+     * @return bits of the selected options, 0 for no answer, or -1 if the answer is not a mask
+     */
+    public static long decodeMask(String answer) {
+        if (answer == null || answer.isEmpty()) {
+            return 0;
+        }
+        try {
+            long mask = Long.parseLong(answer);
+            return mask >= 0 ? mask : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Looks up an option by its (normalized) text.
+     *
+     * @param option option text
+     * @return option index, or -1 if it is not an option
+     */
+    public int indexOfOption(String option) {
+        Integer idx = optionIndex.get(Question.normalize(option));
+        return idx == null ? -1 : idx;
+    }
+
+    /** @return verified image width, -1 if unknown */
+    public int getImageWidth() { return imageWidth; }
+
+    /** @return verified image height, -1 if unknown */
+    public int getImageHeight() { return imageHeight; }
+}
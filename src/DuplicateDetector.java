@@ -0,0 +1,284 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Finds near-duplicate questions with MinHash signatures and LSH banding.
+ * Each question's prompt, options and image path are normalized and cut into overlapping
+ * character shingles. A signature of {@value #HASHES} minimum hashes estimates
+ * the Jaccard similarity of two shingle sets. Signatures are split into
+ * {@value #BANDS} bands, and questions that share a band become candidates.
+ * Only candidates are compared, so the cost is roughly linear in the bank size.
+ * Questions can be added one at a time, and each addition only touches its own
+ * buckets.
+ *
+ * <p>A pair of similarity s becomes a candidate with probability
+ * {@code 1 - (1 - s^ROWS)^BANDS}. With {@value #BANDS} bands of {@value #ROWS}
+ * rows that curve rises around 0.42, so a pair at 0.7 is a candidate about
+ * 99.98% of the time and one at 0.5 about 87%. Candidates are then kept only
+ * if their estimated similarity reaches the threshold.</p>
+ *
+ * <pre>
+ * java DuplicateDetector [threshold]
+ * </pre>
+ *
+ * @author GasTheJuice
+ */
+public class DuplicateDetector {
+    /** Number of MinHash functions in a signature */
+    public static final int HASHES = 128;
+
+    /** Number of LSH bands */
+    public static final int BANDS = 32;
+
+    /** Signature rows per band */
+    public static final int ROWS = HASHES / BANDS;
+
+    /** Characters per shingle */
+    public static final int SHINGLE_LENGTH = 5;
+
+    /** Default minimum estimated similarity for a reported pair */
+    public static final double DEFAULT_THRESHOLD = 0.7;
+
+    private static final long[] SEEDS = new SplittableRandom(0x5EED).longs(HASHES).toArray();
+
+    private final double threshold;
+    private final List<Question> questions = new ArrayList<>();
+    private final List<int[]> signatures = new ArrayList<>();
+    private final Map<Long, List<Integer>> buckets = new HashMap<>();
+    private final List<Integer> parent = new ArrayList<>();
+
+    /** A pair of similar questions, by position of addition */
+    public static final class Match {
+        private final int first;
+        private final int second;
+        private final double similarity;
+
+        Match(int first, int second, double similarity) {
+            this.first = first;
+            this.second = second;
+            this.similarity = similarity;
+        }
+
+        /** @return position of the earlier question */
+        public int getFirst() { return first; }
+
+        /** @return position of the later question */
+        public int getSecond() { return second; }
+
+        /** @return estimated Jaccard similarity of the two questions */
+        public double getSimilarity() { return similarity; }
+    }
+
+    /** Creates a detector with the {@link #DEFAULT_THRESHOLD}. */
+    public DuplicateDetector() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a detector.
+     *
+     * @param threshold minimum estimated similarity for two questions to match
+     */
+    public DuplicateDetector(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Adds a question and returns the earlier questions it nearly duplicates.
+     *
+     * @param question question to add
+     * @return matches against previously added questions, most similar first
+     */
+    public List<Match> add(Question question) {
+        int id = questions.size();
+        int[] signature = signature(question);
+        List<Match> matches = candidates(id, signature);
+        questions.add(question);
+        signatures.add(signature);
+        parent.add(id);
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bandKey(signature, band), k -> new ArrayList<>()).add(id);
+        }
+        for (Match m : matches) {
+            union(m.first, id);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the added questions that nearly duplicate a question, without adding it.
+     *
+     * @param question question to look up
+     * @return matches, most similar first; {@link Match#getSecond()} is -1
+     */
+    public List<Match> findSimilar(Question question) {
+        return candidates(-1, signature(question));
+    }
+
+    /** @return number of questions added */
+    public int size() { return questions.size(); }
+
+    /**
+     * @param id position of addition
+     * @return question added at that position
+     */
+    public Question get(int id) { return questions.get(id); }
+
+    /**
+     * Groups all added questions that are linked by matches.
+     *
+     * @return clusters of at least two question positions, in order of addition
+     */
+    public List<List<Integer>> clusters() {
+        Map<Integer, List<Integer>> byRoot = new LinkedHashMap<>();
+        for (int id = 0; id < questions.size(); id++) {
+            byRoot.computeIfAbsent(find(id), k -> new ArrayList<>()).add(id);
+        }
+        List<List<Integer>> clusters = new ArrayList<>();
+        for (List<Integer> members : byRoot.values()) {
+            if (members.size() > 1) {
+                clusters.add(members);
+            }
+        }
+        return clusters;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of two added questions.
+     *
+     * @param a position of the first question
+     * @param b position of the second question
+     * @return fraction of equal signature entries
+     */
+    public double similarity(int a, int b) {
+        return similarity(signatures.get(a), signatures.get(b));
+    }
+
+    private List<Match> candidates(int id, int[] signature) {
+        Set<Integer> seen = new HashSet<>();
+        List<Match> matches = new ArrayList<>();
+        for (int band = 0; band < BANDS; band++) {
+            List<Integer> bucket = buckets.get(bandKey(signature, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (int other : bucket) {
+                if (seen.add(other)) {
+                    double sim = similarity(signature, signatures.get(other));
+                    if (sim >= threshold) {
+                        matches.add(new Match(other, id, sim));
+                    }
+                }
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::getSimilarity).reversed());
+        return matches;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    /** Builds the MinHash signature of a question's normalized prompt, options and image. */
+    static int[] signature(Question question) {
+        StringBuilder text = new StringBuilder(Question.normalize(question.getPrompt()));
+        if (question.getOptions() != null) {
+            for (String option : question.getOptions()) {
+                text.append(" | ").append(Question.normalize(option));
+            }
+        }
+        if (question.getImagePath() != null) {
+            text.append(" | ").append(question.getImagePath());
+        }
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int limit = Math.max(1, text.length() - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < limit; start++) {
+            int end = Math.min(text.length(), start + SHINGLE_LENGTH);
+            int shingle = 0;
+            for (int i = start; i < end; i++) {
+                shingle = 31 * shingle + text.charAt(i);
+            }
+            for (int h = 0; h < HASHES; h++) {
+                int value = (int) (mix(shingle ^ SEEDS[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /** Hash of one band's rows, tagged with the band number so bands never share buckets. */
+    private static long bandKey(int[] signature, int band) {
+        long h = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            h = mix(h * 31 + signature[i]);
+        }
+        return h;
+    }
+
+    /** SplitMix64 finalizer */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private int find(int id) {
+        while (parent.get(id) != id) {
+            parent.set(id, parent.get(parent.get(id)));
+            id = parent.get(id);
+        }
+        return id;
+    }
+
+    private void union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra != rb) {
+            parent.set(Math.max(ra, rb), Math.min(ra, rb));
+        }
+    }
+
+    /**
+     * Prints the clusters of near-duplicate questions in the bank.
+     *
+     * @param args optional similarity threshold (defaults to {@value #DEFAULT_THRESHOLD})
+     */
+    public static void main(String[] args) {
+        double threshold = args.length > 0 ? Double.parseDouble(args[0]) : DEFAULT_THRESHOLD;
+        DuplicateDetector detector = new DuplicateDetector(threshold);
+        ThemeCatalog catalog = QuestionBank.loadCatalog();
+        for (String theme : catalog.getThemes()) {
+            for (Question q : catalog.getQuestions(theme)) {
+                detector.add(q);
+            }
+        }
+        List<List<Integer>> clusters = detector.clusters();
+        for (List<Integer> cluster : clusters) {
+            System.out.println("Cluster of " + cluster.size() + ":");
+            int first = cluster.get(0);
+            for (int id : cluster) {
+                Question q = detector.get(id);
+                System.out.printf("  #%d %.2f [%s] %s%n", id, detector.similarity(first, id), q.getTheme(),
+                    q.getPrompt().lines().findFirst().orElse(""));
+            }
+        }
+        System.out.println(detector.size() + " questions, " + clusters.size() + " near-duplicate clusters");
+    }
+}
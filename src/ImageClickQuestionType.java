@@ -0,0 +1,132 @@
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+
+/**
+ * Question answered by clicking the correct area of an image.
+ * The answer is "correct", "wrong" or empty if the image was not clicked.
+ * Images come from an {@link ImagePyramid} and follow the size of the window.
+ *
+ * @author GasTheJuice
+ */
+public class ImageClickQuestionType implements QuestionTypeProvider {
+
+    @Override
+    public Question.QuestionType type() { return Question.QuestionType.IMAGE_CLICK; }
+
+    @Override
+    public QuestionTypeHandler create() { return new Handler(); }
+
+    static final class Handler implements QuestionTypeHandler {
+        @Override
+        public AnswerView render(Question question) {
+            ImagePyramid pyramid;
+            try {
+                pyramid = ImagePyramid.load(question.getImagePath());
+            } catch (IOException e) {
+                e.printStackTrace();
+                pyramid = null;
+            }
+
+            JComponent view = pyramid != null
+                ? new ClickableImage(pyramid, question.getCorrectAreas())
+                : new JLabel("Image not available: " + question.getImagePath());
+            JPanel wrapper = new JPanel(new BorderLayout());
+            wrapper.add(view, BorderLayout.CENTER);
+            return new AnswerView() {
+                @Override
+                public JComponent getComponent() { return wrapper; }
+
+                @Override
+                public String getUserAnswer() {
+                    return view instanceof ClickableImage c ? c.clicked : "";
+                }
+            };
+        }
+
+        @Override
+        public boolean grade(Question question, String answer) {
+            return "correct".equals(answer);
+        }
+    }
+
+    /**
+     * Shows the image at the largest pyramid scale that fits, centered.
+     * The correct areas are mapped to every scale once, up front, so resizing
+     * only switches between precomputed scales.
+     */
+    private static final class ClickableImage extends JComponent {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ImagePyramid pyramid;
+        private final double[] scales;
+        private final Rectangle[][] areasByScale;
+        private int level;
+        private int offsetX;
+        private int offsetY;
+        String clicked = "";
+
+        ClickableImage(ImagePyramid pyramid, List<Rectangle> correctAreas) {
+            this.pyramid = pyramid;
+            this.scales = pyramid.getScales();
+            this.areasByScale = new Rectangle[scales.length][];
+            for (int i = 0; i < scales.length; i++) {
+                areasByScale[i] = ImagePyramid.mapAreas(correctAreas, scales[i]);
+            }
+            setPreferredSize(new Dimension(pyramid.getWidth(), pyramid.getHeight()));
+            addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) { relayout(); }
+            });
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) { click(e.getX() - offsetX, e.getY() - offsetY); }
+            });
+        }
+
+        private void relayout() {
+            double scale = pyramid.fitScale(getWidth(), getHeight());
+            level = Arrays.binarySearch(scales, scale);
+            offsetX = Math.max(0, (getWidth() - ImagePyramid.scaled(pyramid.getWidth(), scale)) / 2);
+            offsetY = Math.max(0, (getHeight() - ImagePyramid.scaled(pyramid.getHeight(), scale)) / 2);
+            repaint();
+        }
+
+        private void click(int x, int y) {
+            double scale = scales[level];
+            if (x < 0 || y < 0 || x >= ImagePyramid.scaled(pyramid.getWidth(), scale)
+                    || y >= ImagePyramid.scaled(pyramid.getHeight(), scale)) {
+                return;
+            }
+            clicked = "wrong";
+            for (Rectangle r : areasByScale[level]) {
+                if (r.contains(x, y)) {
+                    clicked = "correct";
+                    return;
+                }
+            }
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            double scale = scales[level];
+            // Drawing the multi-resolution image at a pyramid size lets Java2D pick
+            // the variant for scale times the screen's own scale, unresampled.
+            g.drawImage((Image) pyramid.getImage(), offsetX, offsetY,
+                        ImagePyramid.scaled(pyramid.getWidth(), scale),
+                        ImagePyramid.scaled(pyramid.getHeight(), scale), null);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BaseMultiResolutionImage;
+import java.awt.image.BufferedImage;
+import java.awt.image.MultiResolutionImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+
+/**
+ * Precomputed scaled variants of a question image.
+ * The variants are written ahead of time by {@link #main(String[])} into
+ * {@value #SCALED_DIR} next to the original, named {@code <name>@<scale>x.png},
+ * and exposed together as a {@link MultiResolutionImage}. Java2D then picks the
+ * variant matching the display scale, so HiDPI screens and resized windows are
+ * served without resampling the image on every paint.
+ *
+ * <p>Missing variants are skipped; an image without any behaves like the original.</p>
+ *
+ * @author GasTheJuice
+ */
+public class ImagePyramid {
+    /** Scales generated by the build step, besides the original at 1.0 */
+    public static final double[] SCALES = {0.5, 0.75, 1.5, 2.0};
+
+    /** Folder, relative to the image, holding the scaled variants */
+    public static final String SCALED_DIR = "scaled";
+
+    private static final Map<String, SoftReference<ImagePyramid>> CACHE = new ConcurrentHashMap<>();
+
+    private final int width;
+    private final int height;
+    private final double[] scales;
+    private final MultiResolutionImage image;
+
+    private ImagePyramid(List<BufferedImage> variants, double[] scales) {
+        BufferedImage base = variants.get(indexOf(scales, 1.0));
+        this.width = base.getWidth();
+        this.height = base.getHeight();
+        this.scales = scales;
+        this.image = new BaseMultiResolutionImage(indexOf(scales, 1.0), variants.toArray(new Image[0]));
+    }
+
+    /**
+     * Returns the pyramid of an image, reading it and its variants on first use.
+     * Pyramids are cached softly, so unused images can be dropped under memory pressure.
+     * Only actual reads are timed and reported as {@code quizapp.ImageDecode} events.
+     *
+     * @param imagePath path of the original image
+     * @return loaded pyramid
+     * @throws IOException if the original image cannot be read
+     */
+    public static ImagePyramid load(String imagePath) throws IOException {
+        SoftReference<ImagePyramid> ref = CACHE.get(imagePath);
+        ImagePyramid pyramid = ref == null ? null : ref.get();
+        if (pyramid == null) {
+            QuizEvents.ImageDecode decode = new QuizEvents.ImageDecode();
+            decode.begin();
+            long start = System.nanoTime();
+            pyramid = read(Paths.get(imagePath));
+            QuizMetrics.get().imageLoaded(System.nanoTime() - start);
+            decode.end();
+            if (decode.shouldCommit()) {
+                decode.path = imagePath;
+                decode.width = pyramid.getWidth();
+                decode.height = pyramid.getHeight();
+                decode.commit();
+            }
+            CACHE.put(imagePath, new SoftReference<>(pyramid));
+        }
+        return pyramid;
+    }
+
+    private static ImagePyramid read(Path original) throws IOException {
+        BufferedImage base = ImageIO.read(original.toFile());
+        if (base == null) {
+            throw new IOException("Unreadable image: " + original);
+        }
+        // Variants in ascending scale order, as BaseMultiResolutionImage expects.
+        List<BufferedImage> variants = new ArrayList<>();
+        List<Double> found = new ArrayList<>();
+        boolean baseAdded = false;
+        for (double scale : SCALES) {
+            if (!baseAdded && scale > 1.0) {
+                variants.add(base);
+                found.add(1.0);
+                baseAdded = true;
+            }
+            Path file = variantPath(original, scale);
+            if (Files.exists(file)) {
+                BufferedImage variant = ImageIO.read(file.toFile());
+                if (variant != null
+                        && variant.getWidth() == scaled(base.getWidth(), scale)
+                        && variant.getHeight() == scaled(base.getHeight(), scale)) {
+                    variants.add(variant);
+                    found.add(scale);
+                }
+            }
+        }
+        if (!baseAdded) {
+            variants.add(base);
+            found.add(1.0);
+        }
+        return new ImagePyramid(variants, found.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /** @return width of the original image */
+    public int getWidth() { return width; }
+
+    /** @return height of the original image */
+    public int getHeight() { return height; }
+
+    /** @return all variants, for drawing at any logical size */
+    public MultiResolutionImage getImage() { return image; }
+
+    /** @return scales available in this pyramid, ascending, including 1.0 */
+    public double[] getScales() { return scales.clone(); }
+
+    /**
+     * Picks the largest available scale at which the image fits into a box,
+     * or the smallest one if none fits.
+     *
+     * @param boxWidth available width
+     * @param boxHeight available height
+     * @return one of {@link #getScales()}
+     */
+    public double fitScale(int boxWidth, int boxHeight) {
+        double best = scales[0];
+        for (double s : scales) {
+            if (scaled(width, s) <= boxWidth && scaled(height, s) <= boxHeight) {
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Maps rectangles given in original image pixels to one scale of the pyramid.
+     *
+     * @param areas rectangles in original pixels
+     * @param scale target scale
+     * @return mapped rectangles, in the same order
+     */
+    public static Rectangle[] mapAreas(List<Rectangle> areas, double scale) {
+        Rectangle[] mapped = new Rectangle[areas.size()];
+        for (int i = 0; i < mapped.length; i++) {
+            Rectangle r = areas.get(i);
+            int x = (int) Math.floor(r.x * scale);
+            int y = (int) Math.floor(r.y * scale);
+            mapped[i] = new Rectangle(x, y,
+                (int) Math.ceil((r.x + r.width) * scale) - x,
+                (int) Math.ceil((r.y + r.height) * scale) - y);
+        }
+        return mapped;
+    }
+
+    /** @return size of a dimension at the given scale, as the build step rounds it */
+    static int scaled(int size, double scale) {
+        return Math.max(1, (int) Math.round(size * scale));
+    }
+
+    /** @return location of one scaled variant of an image */
+    static Path variantPath(Path original, double scale) {
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        String label = String.format(Locale.US, "%s", scale).replaceFirst("\\.0$", "");
+        Path dir = original.resolveSibling(SCALED_DIR);
+        return dir.resolve(stem + "@" + label + "x.png");
+    }
+
+    private static int indexOf(double[] scales, double scale) {
+        for (int i = 0; i < scales.length; i++) {
+            if (scales[i] == scale) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No variant at scale " + scale);
+    }
+
+    /**
+     * Resamples an image with bicubic filtering. Large reductions go through
+     * successive halvings so the result does not alias.
+     */
+    static BufferedImage resample(BufferedImage src, int targetWidth, int targetHeight) {
+        BufferedImage current = src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        do {
+            w = Math.max(targetWidth, w > targetWidth ? w / 2 : targetWidth);
+            h = Math.max(targetHeight, h > targetHeight ? h / 2 : targetHeight);
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = next;
+        } while (w != targetWidth || h != targetHeight);
+        return current;
+    }
+
+    /**
+     * Build step entry point: writes the scaled variants of every PNG in a folder.
+     *
+     * @param args optional image folder (defaults to {@code images})
+     */
+    public static void main(String[] args) {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "images");
+        int written = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path original : (Iterable<Path>) files.filter(p -> p.toString().endsWith(".png")).sorted()::iterator) {
+                BufferedImage base = ImageIO.read(original.toFile());
+                if (base == null) {
+                    System.err.println("Skipping unreadable image " + original);
+                    continue;
+                }
+                Files.createDirectories(dir.resolve(SCALED_DIR));
+                for (double scale : SCALES) {
+                    BufferedImage variant = resample(base, scaled(base.getWidth(), scale), scaled(base.getHeight(), scale));
+                    File target = variantPath(original, scale).toFile();
+                    ImageIO.write(variant, "png", target);
+                    written++;
+                }
+            }
+            System.out.println("Wrote " + written + " scaled images to " + dir.resolve(SCALED_DIR));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.beans.ConstructorProperties;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets.
+ * Each power of two is split into {@value #SUB_BUCKETS} linear sub-buckets,
+ * so reported percentiles are within about 12% of the true value.
+ *
+ * @author GasTheJuice
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    /** Point-in-time view of a histogram, exposed over JMX as composite data */
+    public static final class Snapshot {
+        private final long count;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        @ConstructorProperties({"count", "meanMillis", "p50Millis", "p90Millis", "p99Millis", "maxMillis"})
+        public Snapshot(long count, double meanMillis, double p50Millis, double p90Millis,
+                        double p99Millis, double maxMillis) {
+            this.count = count;
+            this.meanMillis = meanMillis;
+            this.p50Millis = p50Millis;
+            this.p90Millis = p90Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        /** @return number of recorded samples */
+        public long getCount() { return count; }
+
+        /** @return mean latency in milliseconds */
+        public double getMeanMillis() { return meanMillis; }
+
+        /** @return median latency in milliseconds */
+        public double getP50Millis() { return p50Millis; }
+
+        /** @return 90th percentile latency in milliseconds */
+        public double getP90Millis() { return p90Millis; }
+
+        /** @return 99th percentile latency in milliseconds */
+        public double getP99Millis() { return p99Millis; }
+
+        /** @return largest recorded latency in milliseconds */
+        public double getMaxMillis() { return maxMillis; }
+    }
+
+    /**
+     * Records one sample.
+     *
+     * @param nanos duration in nanoseconds; negative values are clamped to 0
+     */
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(v));
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /** @return current percentiles and totals */
+    public Snapshot snapshot() {
+        long n = 0;
+        long[] copy = new long[buckets.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = buckets.get(i);
+            n += copy[i];
+        }
+        return new Snapshot(n, n == 0 ? 0 : sum.sum() / (double) n / 1e6,
+                            percentile(copy, n, 0.50), percentile(copy, n, 0.90),
+                            percentile(copy, n, 0.99), max.get() / 1e6);
+    }
+
+    /** Clears all samples. Concurrent recordings may survive partially. */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        sum.reset();
+        max.reset();
+    }
+
+    private static int bucketOf(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int octave = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (octave - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (octave - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int octave = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (octave - SUB_BITS)) - 1;
+    }
+
+    private static double percentile(long[] counts, long total, double p) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i) / 1e6;
+            }
+        }
+        return 0;
+    }
+}
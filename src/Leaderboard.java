@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ranking of the finished quizzes of one theme, best score first and
+ * faster time breaking ties. Backed by a lock-free skip list, so any number
+ * of sessions can finish at once without blocking each other or readers.
+ * Inserts are O(log n) and a top-K query only walks the first K entries.
+ *
+ * @author GasTheJuice
+ */
+public class Leaderboard {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<String, Entry> bestByPlayer = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** One finished quiz. Earlier attempts win ties on score and time. */
+    public static final class Entry implements Comparable<Entry> {
+        private static final Comparator<Entry> ORDER = Comparator
+            .comparingDouble((Entry e) -> -e.percentage)
+            .thenComparingLong(e -> e.seconds)
+            .thenComparing(e -> e.timestamp)
+            .thenComparingLong(e -> e.sequence);
+
+        private final String player;
+        private final double percentage;
+        private final long seconds;
+        private final String timestamp;
+        private final long sequence = SEQUENCE.incrementAndGet();
+
+        /**
+         * @param player name of the player
+         * @param percentage score percentage
+         * @param seconds time taken
+         * @param timestamp ISO date and time the quiz was finished
+         */
+        public Entry(String player, double percentage, long seconds, String timestamp) {
+            this.player = player;
+            this.percentage = percentage;
+            this.seconds = seconds;
+            this.timestamp = timestamp;
+        }
+
+        /** @return name of the player */
+        public String getPlayer() { return player; }
+
+        /** @return score percentage */
+        public double getPercentage() { return percentage; }
+
+        /** @return time taken in seconds */
+        public long getSeconds() { return seconds; }
+
+        /** @return ISO date and time the quiz was finished */
+        public String getTimestamp() { return timestamp; }
+
+        @Override
+        public int compareTo(Entry o) {
+            return ORDER.compare(this, o);
+        }
+    }
+
+    /**
+     * Adds a finished quiz to the ranking.
+     *
+     * @param entry finished quiz
+     */
+    public void add(Entry entry) {
+        ranking.add(entry);
+        size.incrementAndGet();
+        bestByPlayer.merge(entry.player, entry, (old, e) -> e.compareTo(old) < 0 ? e : old);
+    }
+
+    /**
+     * Returns the best K entries in rank order.
+     *
+     * @param k maximum number of entries
+     * @return up to k entries, best first
+     */
+    public List<Entry> top(int k) {
+        List<Entry> top = new ArrayList<>(Math.min(k, size.get()));
+        Iterator<Entry> it = ranking.iterator();
+        while (top.size() < k && it.hasNext()) {
+            top.add(it.next());
+        }
+        return top;
+    }
+
+    /**
+     * Returns the rank of a player's best attempt. Counting the entries
+     * ahead of it walks the list, so this is linear in the rank.
+     *
+     * @param player name of the player
+     * @return 1-based rank, or 0 if the player has no attempt on this board
+     */
+    public int rankOf(String player) {
+        Entry best = bestByPlayer.get(player);
+        return best == null ? 0 : ranking.headSet(best).size() + 1;
+    }
+
+    /**
+     * @param player name of the player
+     * @return best attempt of the player, or null
+     */
+    public Entry getBest(String player) {
+        return bestByPlayer.get(player);
+    }
+
+    /** @return number of attempts on this board */
+    public int size() {
+        return size.get();
+    }
+}
@@ -1,10 +1,15 @@
 import javax.swing.Timer;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import com.formdev.flatlaf.FlatDarkLaf;
 import com.formdev.flatlaf.FlatLightLaf;
 import java.awt.BorderLayout;
 import java.awt.CardLayout;
 import java.awt.Component;
+import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
@@ -30,6 +35,7 @@ import javax.swing.JSlider;
 import javax.swing.JTextArea;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 
@@ -49,6 +55,7 @@ public class MainFrame extends JFrame {
     private final JMenuItem menuItemHelp = new JMenuItem("Help");
     private final JMenuItem menuItemAbout = new JMenuItem("About");
     private final JMenuItem menuItemHistory = new JMenuItem("History");
+    private final JMenuItem menuItemLeaderboard = new JMenuItem("Leaderboard");
     private final JCheckBoxMenuItem menuItemDarkMode = new JCheckBoxMenuItem("Dark Mode");
     private final JCheckBoxMenuItem menuItemMusic = new JCheckBoxMenuItem("Disable Music");
 
@@ -75,9 +82,11 @@ public class MainFrame extends JFrame {
     private BackgroundMusicPlayer musicPlayer;
 
     // === Quiz State ===
+    private final ThemeCatalog catalog = QuestionBank.loadCatalog();
     private QuizManager quizManager;
-    private int hintsUsed = 0;
+    private final SessionJournal sessionJournal = new SessionJournal();
     private int remainingSeconds;
+    private boolean finishing;
 
     /**
      * Constructs and displays the main quiz application window.
@@ -114,6 +123,8 @@ public class MainFrame extends JFrame {
 
         menuItemHistory.addActionListener(e -> showHistory());
         menuStats.add(menuItemHistory);
+        menuItemLeaderboard.addActionListener(e -> showLeaderboard());
+        menuStats.add(menuItemLeaderboard);
 
         menuItemHelp.addActionListener(e -> showHelp());
         menuItemAbout.addActionListener(e -> showAbout());
@@ -124,8 +135,7 @@ public class MainFrame extends JFrame {
                     musicPlayer.stopMusic();
                 }
             } else {
-                musicPlayer = new BackgroundMusicPlayer("audio/background.wav");
-                musicPlayer.start();
+                startBackgroundMusic();
             }
         });
 
@@ -158,9 +168,9 @@ public class MainFrame extends JFrame {
         JLabel selectLabel = new JLabel("Select a theme:");
         selectLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-        themeSelector.addItem("ifs loops and operators");
-        themeSelector.addItem("strings arrays and pointers");
-        themeSelector.addItem("functions structs and memory");
+        for (String theme : catalog.getThemes()) {
+            themeSelector.addItem(theme);
+        }
         themeSelector.setAlignmentX(Component.CENTER_ALIGNMENT);
         themeSelector.setMaximumSize(new Dimension(400, 30));
 
@@ -168,7 +178,6 @@ public class MainFrame extends JFrame {
         sliderLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
         questionSlider = new JSlider(JSlider.HORIZONTAL, 1, 12, 12);
-        questionSlider.setMajorTickSpacing(1);
         questionSlider.setPaintTicks(true);
         questionSlider.setPaintLabels(true);
         questionSlider.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -180,6 +189,8 @@ public class MainFrame extends JFrame {
             int value = questionSlider.getValue();
             sliderValueLabel.setText("Number of questions: " + value);
         });
+        themeSelector.addActionListener(e -> updateQuestionSlider());
+        updateQuestionSlider();
 
         JLabel timeSliderLabel = new JLabel("Select time limit (seconds):");
         timeSliderLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -219,6 +230,18 @@ public class MainFrame extends JFrame {
         panelMainContainer.add(panelStartScreen, "StartScreen");
     }
 
+    /** Sizes the question slider to the catalog's question count for the selected theme. */
+    private void updateQuestionSlider() {
+        String theme = (String) themeSelector.getSelectedItem();
+        int max = Math.max(1, catalog.getQuestionCount(theme) + QuestionBank.getTemplates(theme).size());
+        int spacing = max <= 12 ? 1 : (int) Math.ceil(max / 10.0);
+        questionSlider.setLabelTable(null);
+        questionSlider.setMaximum(max);
+        questionSlider.setMajorTickSpacing(spacing);
+        questionSlider.setLabelTable(questionSlider.createStandardLabels(spacing));
+        questionSlider.setValue(Math.min(max, 12));
+    }
+
     /** Initializes the question container with navigation buttons. */
     private void initQuestionContainer() {
         JPanel bottomPanel = new JPanel();
@@ -239,13 +262,48 @@ public class MainFrame extends JFrame {
 
     /** Creates the quiz manager and shows the start screen. */
     private void setupQuizManager() {
-        quizManager = new QuizManager(QuestionBank.getAllQuestions());
+        quizManager = new QuizManager(catalog);
+        quizManager.setJournal(sessionJournal);
         cardLayout.show(panelMainContainer, "StartScreen");
+        if (sessionJournal.hasPending()) {
+            SwingUtilities.invokeLater(this::offerResume);
+        }
+    }
+
+    /** Offers to resume a quiz left behind by a crash, or discards its journal. */
+    private void offerResume() {
+        SessionJournal.Replay replay;
+        try {
+            replay = sessionJournal.replay(catalog);
+        } catch (UncheckedIOException e) {
+            // Keep the journal, the questions may be readable next time.
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "An unfinished quiz was found, but its questions could not be loaded.",
+                "Resume Quiz", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (replay == null || replay.getRemainingSeconds() <= 0) {
+            sessionJournal.clear();
+            return;
+        }
+        int option = JOptionPane.showConfirmDialog(this,
+            String.format("An unfinished quiz was found (%s, question %d of %d, %s left).%nResume it?",
+                replay.getTheme(), replay.getCurrentIndex() + 1, replay.getQuestionCount(),
+                formatTime(replay.getRemainingSeconds())),
+            "Resume Quiz", JOptionPane.YES_NO_OPTION);
+        if (option == JOptionPane.YES_OPTION) {
+            quizManager.restore(replay);
+            themeSelector.setSelectedItem(replay.getTheme());
+            beginQuiz(replay.getRemainingSeconds());
+        } else {
+            sessionJournal.clear();
+        }
     }
 
     /** Starts playing background music. */
     private void startBackgroundMusic() {
         musicPlayer = new BackgroundMusicPlayer("audio/background.wav");
+        QuizMetrics.get().setMusicThread(musicPlayer);
         musicPlayer.start();
     }
 
@@ -253,11 +311,31 @@ public class MainFrame extends JFrame {
     private void startQuiz() {
         String selectedTheme = (String) themeSelector.getSelectedItem();
         int questionCount = questionSlider.getValue();
-        quizManager.startQuizForTheme(selectedTheme, questionCount);
         quizManager.setTimeLimitSeconds(timeSlider.getValue());
+        try {
+            quizManager.startQuizForTheme(selectedTheme, questionCount);
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "The questions of \"" + selectedTheme + "\" could not be loaded.",
+                "Start Quiz", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (quizManager.getQuestionCount() == 0) {
+            quizManager.discardJournal();
+            JOptionPane.showMessageDialog(this, "There are no questions for \"" + selectedTheme + "\".",
+                "Start Quiz", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        beginQuiz(quizManager.getTimeLimitSeconds());
+    }
 
-        hintsUsed = 0;
-        remainingSeconds = quizManager.getTimeLimitSeconds();
+    /**
+     * Starts the countdown and shows the current question of the quiz manager.
+     * 
+     * @param secondsLeft seconds remaining on the clock
+     */
+    private void beginQuiz(int secondsLeft) {
+        remainingSeconds = secondsLeft;
 
         if (countdownTimer != null && countdownTimer.isRunning()) {
             countdownTimer.stop();
@@ -287,9 +365,9 @@ public class MainFrame extends JFrame {
 
         Question q = quizManager.getCurrentQuestion();
         currentQuestionPanel = new QuestionPanel(q);
+        quizManager.markShown();
         panelQuestionContainer.add(currentQuestionPanel, BorderLayout.CENTER);
 
-        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 5));
         progressLabel = new JLabel("Question " + (quizManager.getCurrentIndex() + 1) + " of " + quizManager.getQuestionCount());
         hintButton = new JButton("Hint");
         nextButton = new JButton("Next");
@@ -299,15 +377,8 @@ public class MainFrame extends JFrame {
         nextButton.addActionListener(e -> goNext());
         submitButton.addActionListener(e -> finishQuiz());
 
-        bottomPanel.add(progressLabel);
-        bottomPanel.add(hintButton);
-        bottomPanel.add(nextButton);
-        bottomPanel.add(submitButton);
-        if (timerLabel != null) {
-            bottomPanel.add(timerLabel);
-        }
-
-        panelQuestionContainer.add(bottomPanel, BorderLayout.SOUTH);
+        panelQuestionContainer.add(buildNavigationBar(progressLabel, timerLabel, hintButton, nextButton, submitButton),
+                                   BorderLayout.SOUTH);
 
         panelQuestionContainer.getInputMap(JPanel.WHEN_IN_FOCUSED_WINDOW)
             .put(KeyStroke.getKeyStroke("ENTER"), "pressEnter");
@@ -326,6 +397,26 @@ public class MainFrame extends JFrame {
         panelQuestionContainer.repaint();
     }
 
+    /**
+     * Builds the bar below a question: progress, buttons and the countdown.
+     *
+     * @param progress progress label
+     * @param timer countdown label, or null
+     * @param buttons navigation buttons, already wired
+     * @return bar panel
+     */
+    static JPanel buildNavigationBar(JLabel progress, JLabel timer, JButton... buttons) {
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 5));
+        bottomPanel.add(progress);
+        for (JButton button : buttons) {
+            bottomPanel.add(button);
+        }
+        if (timer != null) {
+            bottomPanel.add(timer);
+        }
+        return bottomPanel;
+    }
+
     /** Shows a hint for the current question if available. */
     private void showHint() {
         String hint = currentQuestionPanel.getQuestion().getHint();
@@ -333,12 +424,15 @@ public class MainFrame extends JFrame {
             JOptionPane.showMessageDialog(this, "No hint available for this question.");
         } else {
             JOptionPane.showMessageDialog(this, hint, "Hint", JOptionPane.INFORMATION_MESSAGE);
-            hintsUsed++;
+            quizManager.useHint();
         }
     }
 
     /** Advances to the next question after recording the current answer. */
     private void goNext() {
+        if (finishing) {
+            return;
+        }
         if (quizManager.getCurrentIndex() < quizManager.getQuestionCount() - 1) {
             boolean correct = currentQuestionPanel.checkAnswer();
             quizManager.recordAnswer(correct);
@@ -350,38 +444,93 @@ public class MainFrame extends JFrame {
         }
     }
 
-    /** Finalizes the quiz, records stats, and shows results. */
+    /**
+     * Finalizes the quiz. Grading the last answer, persisting the result and
+     * building the summary run on a background worker, so a slow disk never
+     * freezes the window; the results are shown once they are ready.
+     */
     private void finishQuiz() {
+        if (finishing) {
+            return;
+        }
+        finishing = true;
         if (countdownTimer != null && countdownTimer.isRunning()) {
             countdownTimer.stop();
         }
 
-        boolean correct = currentQuestionPanel.checkAnswer();
-        quizManager.recordAnswer(correct);
-        quizManager.storeAnswer(currentQuestionPanel.getUserAnswer());
-        quizManager.finish();
+        // Swing components are read here; the worker only sees plain values.
+        Question lastQuestion = currentQuestionPanel.getQuestion();
+        String lastAnswer = currentQuestionPanel.getUserAnswer();
+        hintButton.setEnabled(false);
+        nextButton.setEnabled(false);
+        submitButton.setEnabled(false);
+        progressLabel.setText("Saving results...");
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
-        double percentage = quizManager.getPercentage();
-        String theme = (String) themeSelector.getSelectedItem();
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                quizManager.recordAnswer(lastQuestion.isCorrect(lastAnswer));
+                quizManager.storeAnswer(lastAnswer);
+                quizManager.finish();
+
+                double percentage = quizManager.getPercentage();
+                String theme = quizManager.getTheme();
+
+                StatsManager.append(
+                    StatsManager.DEFAULT_PLAYER,
+                    theme,
+                    quizManager.getCorrectCount(),
+                    quizManager.getWrongCount(),
+                    percentage,
+                    quizManager.getHintsUsed(),
+                    quizManager.getElapsedSeconds()
+                );
+                quizManager.discardJournal();
+                AnswerSketches.save();
+                Leaderboard board = StatsManager.getLeaderboard(theme);
+                StatsDigests.ThemeDigest digest = StatsManager.getDigest(theme);
+
+                return String.format(
+                    "Quiz finished!\nCorrect: %d\nWrong: %d\nScore: %.2f%%\nTime: %ds\nBest rank: #%d of %d\nScore at or above %.0f%% of attempts",
+                    quizManager.getCorrectCount(),
+                    quizManager.getWrongCount(),
+                    percentage,
+                    quizManager.getElapsedSeconds(),
+                    board.rankOf(StatsManager.DEFAULT_PLAYER),
+                    board.size(),
+                    100 * digest.getPercentage().cdf(percentage)
+                );
+            }
 
-        StatsManager.append(
-            theme,
-            quizManager.getCorrectCount(),
-            quizManager.getWrongCount(),
-            percentage,
-            hintsUsed,
-            quizManager.getElapsedSeconds()
-        );
+            @Override
+            protected void done() {
+                finishing = false;
+                setCursor(Cursor.getDefaultCursor());
+                try {
+                    showResults(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "The quiz could not be finished: " + e.getCause(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                    cardLayout.show(panelMainContainer, "StartScreen");
+                }
+            }
+        }.execute();
+    }
 
+    /**
+     * Shows the summary of a finished quiz and returns to the start screen.
+     * 
+     * @param summary text prepared by {@link #finishQuiz()}
+     */
+    private void showResults(String summary) {
         int option = JOptionPane.showOptionDialog(
             this,
-            String.format(
-                "Quiz finished!\nCorrect: %d\nWrong: %d\nScore: %.2f%%\nTime: %ds",
-                quizManager.getCorrectCount(),
-                quizManager.getWrongCount(),
-                percentage,
-                quizManager.getElapsedSeconds()
-            ),
+            summary,
             "Quiz Completed",
             JOptionPane.YES_NO_OPTION,
             JOptionPane.INFORMATION_MESSAGE,
@@ -391,14 +540,7 @@ public class MainFrame extends JFrame {
         );
 
         if (option == JOptionPane.YES_OPTION) {
-            StringBuilder answersSummary = new StringBuilder("Your submitted answers:\n\n");
-            quizManager.getUserAnswers().forEach((question, answer) -> {
-                answersSummary.append(question.getPrompt())
-                    .append("\nYour answer: ").append(answer)
-                    .append("\nCorrect answer: ").append(question.getAnswers())
-                    .append("\n\n");
-            });
-            JOptionPane.showMessageDialog(this, answersSummary.toString(), "Submitted Answers", JOptionPane.INFORMATION_MESSAGE);
+            JOptionPane.showMessageDialog(this, new AnswerReviewPanel(quizManager), "Submitted Answers", JOptionPane.PLAIN_MESSAGE);
         }
 
         cardLayout.show(panelMainContainer, "StartScreen");
@@ -423,14 +565,35 @@ public class MainFrame extends JFrame {
 
     /** Displays quiz history from CSV file in a scrollable dialog. */
     private void showHistory() {
+        // Summaries first: live segments are listed afterwards and skip whatever got archived meanwhile.
+        Map<String, StatsSegments.Summary> archived = StatsManager.readArchivedSummaries();
         List<String[]> history = StatsManager.readHistory();
-        if (history.isEmpty()) {
+        if (history.isEmpty() && archived.isEmpty()) {
             JOptionPane.showMessageDialog(this, "No history recorded yet.");
             return;
         }
+        JOptionPane.showMessageDialog(this, buildHistoryView(history, archived), "Quiz History",
+                                      JOptionPane.INFORMATION_MESSAGE);
+    }
 
+    /**
+     * Builds the scrollable history table shown by {@link #showHistory()}.
+     *
+     * @param history rows of the live history
+     * @param archived per-theme summaries of archived history
+     * @return scroll pane holding the history text
+     */
+    static JScrollPane buildHistoryView(List<String[]> history, Map<String, StatsSegments.Summary> archived) {
         StringBuilder sb = new StringBuilder();
-        sb.append("Date | Theme | Correct | Wrong | % | Hints Used | Time(s)\n");
+        if (!archived.isEmpty()) {
+            sb.append("Archived | Theme | Attempts | Avg % | Avg Time(s) | Hints Used\n");
+            sb.append("-----------------------------------------------------------\n");
+            archived.forEach((theme, s) -> sb.append(String.format("%s..%s | %s | %d | %.2f | %.0f | %d%n",
+                s.getFirst(), s.getLast(), theme, s.getAttempts(), s.getAveragePercentage(),
+                s.getAverageSeconds(), s.getHints())));
+            sb.append("\n");
+        }
+        sb.append("Date | Theme | Correct | Wrong | % | Hints Used | Time(s) | Player\n");
         sb.append("-----------------------------------------------------------\n");
         for (String[] row : history) {
             sb.append(String.join(" | ", row)).append("\n");
@@ -440,10 +603,57 @@ public class MainFrame extends JFrame {
         area.setEditable(false);
         area.setFont(new Font("Monospaced", Font.PLAIN, 12));
 
+        JScrollPane scroll = new JScrollPane(area);
+        scroll.setPreferredSize(new Dimension(600, 400));
+        return scroll;
+    }
+
+    /** Shows the top results of the selected theme and the player's own rank. */
+    private void showLeaderboard() {
+        String theme = (String) themeSelector.getSelectedItem();
+        Leaderboard board = StatsManager.getLeaderboard(theme);
+        if (board.size() == 0) {
+            JOptionPane.showMessageDialog(this, "No results recorded for this theme yet.");
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Rank | Player | % | Time(s) | Date\n");
+        sb.append("-----------------------------------------------------------\n");
+        int rank = 1;
+        for (Leaderboard.Entry e : board.top(10)) {
+            sb.append(String.format("%d | %s | %.2f | %d | %s%n",
+                rank++, e.getPlayer(), e.getPercentage(), e.getSeconds(), e.getTimestamp()));
+        }
+        Leaderboard.Entry best = board.getBest(StatsManager.DEFAULT_PLAYER);
+        if (best != null) {
+            sb.append(String.format("%nYour best: #%d of %d (%.2f%% in %ds)%n",
+                board.rankOf(StatsManager.DEFAULT_PLAYER), board.size(), best.getPercentage(), best.getSeconds()));
+        }
+
+        StatsDigests.ThemeDigest digest = StatsManager.getDigest(theme);
+        QuantileDigest scores = digest.getPercentage();
+        QuantileDigest times = digest.getSeconds();
+        if (scores.size() > 0) {
+            sb.append(String.format("%nScore %%: median %.1f, p90 %.1f   Time(s): median %.0f, p90 %.0f%n",
+                scores.quantile(0.5), scores.quantile(0.9), times.quantile(0.5), times.quantile(0.9)));
+            double[] edges = {-1, 10, 20, 30, 40, 50, 60, 70, 80, 90, 100};
+            long[] counts = scores.histogram(edges);
+            long most = Math.max(1, Arrays.stream(counts).max().orElse(1));
+            for (int i = 0; i < counts.length; i++) {
+                sb.append(String.format("%3.0f-%3.0f%% | %-30s %d%n", Math.max(0, edges[i]), edges[i + 1],
+                    "#".repeat((int) (30 * counts[i] / most)), counts[i]));
+            }
+        }
+
+        JTextArea area = new JTextArea(sb.toString());
+        area.setEditable(false);
+        area.setFont(new Font("Monospaced", Font.PLAIN, 12));
+
         JScrollPane scroll = new JScrollPane(area);
         scroll.setPreferredSize(new Dimension(600, 400));
 
-        JOptionPane.showMessageDialog(this, scroll, "Quiz History", JOptionPane.INFORMATION_MESSAGE);
+        JOptionPane.showMessageDialog(this, scroll, "Leaderboard: " + theme, JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
@@ -487,6 +697,8 @@ public class MainFrame extends JFrame {
         } catch (UnsupportedLookAndFeelException e) {
             e.printStackTrace();
         }
+        QuizMetrics.register();
+        StatsManager.startCompactor();
         SwingUtilities.invokeLater(() -> new MainFrame().setVisible(true));
     }
 }
\ No newline at end of file
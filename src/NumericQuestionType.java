@@ -0,0 +1,30 @@
+/**
+ * Numeric question typed into a text field and compared as a floating point value.
+ *
+ * @author GasTheJuice
+ */
+public class NumericQuestionType implements QuestionTypeProvider {
+
+    @Override
+    public Question.QuestionType type() { return Question.QuestionType.NUMERIC; }
+
+    @Override
+    public QuestionTypeHandler create() { return new Handler(); }
+
+    static final class Handler implements QuestionTypeHandler {
+        @Override
+        public AnswerView render(Question question) {
+            return TextQuestionType.textInput();
+        }
+
+        @Override
+        public boolean grade(Question question, String answer) {
+            try {
+                double ans = Double.parseDouble(Question.normalize(answer));
+                return Math.abs(ans - question.getCompiled().getNumericAnswer()) < 0.000001;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}
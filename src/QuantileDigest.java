@@ -0,0 +1,302 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Merging t-digest: a compact, mergeable summary of a stream of numbers that
+ * answers quantile and rank queries with small relative error, most accurate
+ * near the tails. Values are buffered and folded into at most about
+ * {@code compression} centroids, so memory and query time do not grow with the
+ * number of values. Digests built on different machines merge without the raw data.
+ * Arrays start small and grow with the values added, so a digest of a handful of
+ * values takes a few hundred bytes; a full one at the default compression takes
+ * about 10 KB.
+ *
+ * <p>Not thread-safe; callers must serialize access.</p>
+ *
+ * @author GasTheJuice
+ */
+public class QuantileDigest {
+    /** Default compression, giving at most about 100 centroids */
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    /** Initial length of the centroid and buffer arrays */
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final double compression;
+    private final int bufferCapacity;
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+    private double mergedWeight;
+
+    private double[] bufferMeans;
+    private double[] bufferWeights;
+    private int buffered;
+    private double bufferedWeight;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /** Creates a digest with the {@link #DEFAULT_COMPRESSION}. */
+    public QuantileDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a digest.
+     *
+     * @param compression accuracy knob, roughly the maximum number of centroids
+     */
+    public QuantileDigest(double compression) {
+        this.compression = compression;
+        this.bufferCapacity = ((int) Math.ceil(compression) + 10) * 5;
+        this.means = new double[INITIAL_CAPACITY];
+        this.weights = new double[INITIAL_CAPACITY];
+        this.bufferMeans = new double[INITIAL_CAPACITY];
+        this.bufferWeights = new double[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds one value.
+     *
+     * @param x value to add
+     */
+    public void add(double x) {
+        add(x, 1);
+    }
+
+    private void add(double x, double weight) {
+        if (buffered == bufferMeans.length) {
+            if (bufferMeans.length < bufferCapacity) {
+                int length = Math.min(bufferCapacity, bufferMeans.length * 2);
+                bufferMeans = Arrays.copyOf(bufferMeans, length);
+                bufferWeights = Arrays.copyOf(bufferWeights, length);
+            } else {
+                compress();
+            }
+        }
+        bufferMeans[buffered] = x;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        bufferedWeight += weight;
+        min = Math.min(min, x);
+        max = Math.max(max, x);
+    }
+
+    /**
+     * Adds all values summarized by another digest.
+     *
+     * @param other digest to merge in, left unchanged apart from being compressed
+     */
+    public void merge(QuantileDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /** @return number of values added */
+    public long size() {
+        return Math.round(mergedWeight + bufferedWeight);
+    }
+
+    /**
+     * Folds the buffered values into the centroids. Neighbouring centroids are
+     * combined as long as they stay within one unit of the arcsine scale
+     * function, which keeps centroids small near the tails.
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        int n = centroids + buffered;
+        double[] m = new double[n];
+        double[] w = new double[n];
+        System.arraycopy(means, 0, m, 0, centroids);
+        System.arraycopy(weights, 0, w, 0, centroids);
+        System.arraycopy(bufferMeans, 0, m, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, w, centroids, buffered);
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(m[a], m[b]));
+
+        double total = mergedWeight + bufferedWeight;
+        double[] outMeans = new double[n];
+        double[] outWeights = new double[n];
+        int out = 0;
+        double soFar = 0;
+        double limit = total * qLimit(0);
+        double curMean = m[order[0]];
+        double curWeight = w[order[0]];
+        for (int k = 1; k < n; k++) {
+            int i = order[k];
+            if (soFar + curWeight + w[i] <= limit) {
+                curWeight += w[i];
+                curMean += (m[i] - curMean) * w[i] / curWeight;
+            } else {
+                outMeans[out] = curMean;
+                outWeights[out] = curWeight;
+                out++;
+                soFar += curWeight;
+                limit = total * qLimit(soFar / total);
+                curMean = m[i];
+                curWeight = w[i];
+            }
+        }
+        outMeans[out] = curMean;
+        outWeights[out] = curWeight;
+        out++;
+
+        if (means.length < out) {
+            means = new double[out];
+            weights = new double[out];
+        }
+        System.arraycopy(outMeans, 0, means, 0, out);
+        System.arraycopy(outWeights, 0, weights, 0, out);
+        centroids = out;
+        mergedWeight = total;
+        buffered = 0;
+        bufferedWeight = 0;
+    }
+
+    /** @return largest quantile a centroid starting at {@code q} may reach */
+    private double qLimit(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+        if (k >= compression / 4) {
+            return 1;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    /**
+     * Estimates the value at a quantile.
+     *
+     * @param q quantile between 0 and 1
+     * @return estimated value, or NaN if the digest is empty
+     */
+    public double quantile(double q) {
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        double index = Math.max(0, Math.min(1, q)) * mergedWeight;
+        double half = weights[0] / 2;
+        if (index <= half) {
+            return min + (means[0] - min) * (half == 0 ? 0 : index / half);
+        }
+        double center = half;
+        for (int i = 0; i < centroids - 1; i++) {
+            double next = center + (weights[i] + weights[i + 1]) / 2;
+            if (index <= next) {
+                return means[i] + (means[i + 1] - means[i]) * (index - center) / (next - center);
+            }
+            center = next;
+        }
+        double lastHalf = weights[centroids - 1] / 2;
+        double f = lastHalf == 0 ? 1 : Math.min(1, (index - center) / lastHalf);
+        return means[centroids - 1] + (max - means[centroids - 1]) * f;
+    }
+
+    /**
+     * Estimates the fraction of values at or below a value.
+     *
+     * @param x value to rank
+     * @return fraction between 0 and 1, or NaN if the digest is empty
+     */
+    public double cdf(double x) {
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (x < min) {
+            return 0;
+        }
+        if (x >= max) {
+            return 1;
+        }
+        double cumulative = 0;
+        for (int i = 0; i < centroids; i++) {
+            if (x < means[i]) {
+                double left = i == 0 ? min : means[i - 1];
+                double leftRank = i == 0 ? 0 : cumulative - weights[i - 1] / 2;
+                double rightRank = cumulative + weights[i] / 2;
+                if (means[i] == left) {
+                    return leftRank / mergedWeight;
+                }
+                return (leftRank + (rightRank - leftRank) * (x - left) / (means[i] - left)) / mergedWeight;
+            }
+            cumulative += weights[i];
+        }
+        double left = means[centroids - 1];
+        double lastHalf = weights[centroids - 1] / 2;
+        return (mergedWeight - lastHalf + lastHalf * (x - left) / (max - left)) / mergedWeight;
+    }
+
+    /**
+     * Estimates how many values fall into each bin.
+     *
+     * @param edges ascending bin edges; bin i is {@code (edges[i], edges[i + 1]]}
+     * @return estimated count per bin, {@code edges.length - 1} entries
+     */
+    public long[] histogram(double[] edges) {
+        compress();
+        long[] counts = new long[Math.max(0, edges.length - 1)];
+        if (centroids == 0) {
+            return counts;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = Math.round(mergedWeight * (cdf(edges[i + 1]) - cdf(edges[i])));
+        }
+        return counts;
+    }
+
+    /**
+     * Writes the compressed digest.
+     *
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutputStream out) throws IOException {
+        compress();
+        out.writeDouble(compression);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            out.writeDouble(means[i]);
+            out.writeDouble(weights[i]);
+        }
+    }
+
+    /**
+     * Reads a digest written by {@link #write(DataOutputStream)}.
+     *
+     * @param in source
+     * @return digest read
+     * @throws IOException if reading fails
+     */
+    public static QuantileDigest read(DataInputStream in) throws IOException {
+        QuantileDigest d = new QuantileDigest(in.readDouble());
+        d.min = in.readDouble();
+        d.max = in.readDouble();
+        int count = in.readInt();
+        if (count < 0 || count > 1 << 20) {
+            throw new IOException("Corrupt digest with " + count + " centroids");
+        }
+        d.means = new double[Math.max(count, d.means.length)];
+        d.weights = new double[d.means.length];
+        for (int i = 0; i < count; i++) {
+            d.means[i] = in.readDouble();
+            d.weights[i] = in.readDouble();
+            d.mergedWeight += d.weights[i];
+        }
+        d.centroids = count;
+        return d;
+    }
+}
@@ -1,5 +1,11 @@
 import java.awt.Rectangle;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 
 /**
@@ -9,8 +15,9 @@ import java.util.List;
  * @author GasTheJuice
  */
 public class Question implements Serializable {
+    private static final long serialVersionUID = 1L;
     
-    /** Types of questions supported by the quiz system */
+    /** Types of questions supported by the quiz system, each backed by a {@link QuestionTypeProvider} */
     public enum QuestionType {
         RADIO, CHECKBOX, NUMERIC, TEXT, COMBOBOX, SLIDER, IMAGE_CLICK
     }
@@ -23,6 +30,8 @@ public class Question implements Serializable {
     private final String hint;
     private final String imagePath;
     private final List<Rectangle> correctAreas;
+    private transient volatile CompiledQuestion compiled;
+    private transient volatile String id;
 
     /**
      * Full constructor for all question types including image-click.
@@ -78,6 +87,121 @@ public class Question implements Serializable {
     /** @return list of correct click regions (for IMAGE_CLICK) */
     public List<Rectangle> getCorrectAreas() { return correctAreas; }
 
+    /**
+     * Returns a stable identifier derived from the content that defines the
+     * question: type, prompt, options, answers, image and click areas. The same
+     * question gets the same id in every bank and after every re-import; theme
+     * and hint are not part of it, so moving a question or rewording its hint
+     * keeps the id.
+     * 
+     * @return 16 hex digits of a SHA-256 over the content
+     */
+    public String getId() {
+        String i = id;
+        if (i == null) {
+            i = computeId();
+            id = i;
+        }
+        return i;
+    }
+
+    /** @return a fresh SHA-256 digest, used for question ids and shard fingerprints */
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+        }
+    }
+
+    private String computeId() {
+        MessageDigest sha = sha256();
+        hashString(sha, type.name());
+        hashString(sha, prompt);
+        hashList(sha, options);
+        hashList(sha, answers);
+        hashString(sha, imagePath);
+        List<Rectangle> areas = correctAreas == null ? List.of() : correctAreas;
+        ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + areas.size() * 4 * Integer.BYTES).putInt(areas.size());
+        for (Rectangle r : areas) {
+            buf.putInt(r.x).putInt(r.y).putInt(r.width).putInt(r.height);
+        }
+        sha.update(buf.array());
+        return HexFormat.of().formatHex(sha.digest(), 0, 8);
+    }
+
+    /** Hashes a value with its length, so field boundaries cannot shift; null differs from empty. */
+    private static void hashString(MessageDigest sha, String value) {
+        if (value == null) {
+            sha.update(ByteBuffer.allocate(Integer.BYTES).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        sha.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        sha.update(bytes);
+    }
+
+    private static void hashList(MessageDigest sha, List<String> values) {
+        sha.update(ByteBuffer.allocate(Integer.BYTES).putInt(values == null ? -1 : values.size()).array());
+        if (values != null) {
+            for (String v : values) {
+                hashString(sha, v);
+            }
+        }
+    }
+
+    /**
+     * Returns the parsed form of this question, compiling it on first use
+     * if the bank was not validated up front.
+     * 
+     * @return compiled question
+     */
+    public CompiledQuestion getCompiled() {
+        CompiledQuestion c = compiled;
+        if (c == null) {
+            c = QuestionValidator.compile(this, -1, new ArrayList<>());
+            compiled = c;
+        }
+        return c;
+    }
+
+    /** @param compiled compiled form produced by {@link QuestionValidator} */
+    void setCompiled(CompiledQuestion compiled) {
+        this.compiled = compiled;
+    }
+
+    /**
+     * Grades a raw answer in the form produced by {@link QuestionPanel#getUserAnswer()}.
+     * 
+     * @param answer user's answer string
+     * @return true if the answer matches the correct answer(s)
+     */
+    public boolean isCorrect(String answer) {
+        QuizEvents.AnswerGraded event = new QuizEvents.AnswerGraded();
+        event.begin();
+        long start = System.nanoTime();
+        boolean correct = QuestionTypes.handler(type).grade(this, answer);
+        QuizMetrics.get().answerGraded(type, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = type.name();
+            event.correct = correct;
+            event.commit();
+        }
+        return correct;
+    }
+
+    /**
+     * Turns a raw answer into text for display, such as the selected options
+     * of a choice question.
+     * 
+     * @param answer user's answer string
+     * @return readable answer
+     */
+    public String describeAnswer(String answer) {
+        return QuestionTypes.handler(type).describe(this, answer);
+    }
+
     /**
      * Normalizes a string for case-insensitive, whitespace-insensitive comparison.
      * 
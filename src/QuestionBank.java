@@ -1,4 +1,8 @@
 import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -10,6 +14,64 @@ import java.util.List;
  * @author GasTheJuice
  */
 public class QuestionBank {
+
+    /**
+     * Returns the theme catalog, preferring the sharded bank in
+     * {@value ThemeCatalog#CATALOG_DIR} when one exists. Only the catalog index
+     * is read; each theme's shard is mapped when the theme is first used.
+     * Otherwise a single-file snapshot is grouped by theme without decoding it,
+     * and the built-in questions are the last resort.
+     *
+     * @return catalog of all themes
+     */
+    public static ThemeCatalog loadCatalog() {
+        Path dir = Paths.get(ThemeCatalog.CATALOG_DIR);
+        if (Files.exists(dir.resolve(ThemeCatalog.CATALOG_FILE))) {
+            try {
+                return ThemeCatalog.load(dir);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        Path snapshot = Paths.get(BankSnapshot.SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try {
+                return ThemeCatalog.of(BankSnapshot.load(snapshot));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return ThemeCatalog.of(builtInQuestions());
+    }
+
+    /**
+     * Returns the question bank, preferring the binary snapshot when one exists.
+     * Falls back to the built-in questions if the snapshot is missing or unreadable.
+     * Built-in questions are validated and precompiled here; snapshots are
+     * validated when they are written and compile lazily on first use.
+     *
+     * @return list of all questions
+     */
+    public static List<Question> loadQuestions() {
+        Path snapshot = Paths.get(BankSnapshot.SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try {
+                return BankSnapshot.load(snapshot).asList();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return builtInQuestions();
+    }
+
+    private static List<Question> builtInQuestions() {
+        List<Question> questions = getAllQuestions();
+        QuestionValidator.Report report = QuestionValidator.validateAll(questions);
+        if (!report.getDiagnostics().isEmpty()) {
+            System.err.print(report);
+        }
+        return questions;
+    }
     
     /**
      * Returns a complete list of all quiz questions.
@@ -298,4 +360,89 @@ public class QuestionBank {
 
         return list;
     }
+
+    private static volatile List<QuestionTemplate> templates;
+
+    /**
+     * Returns the built-in question templates. They are created and compiled
+     * once, on first use, so a broken template fails fast.
+     *
+     * @return unmodifiable list of all templates
+     */
+    public static List<QuestionTemplate> getTemplates() {
+        List<QuestionTemplate> t = templates;
+        if (t == null) {
+            t = List.copyOf(createTemplates());
+            for (QuestionTemplate template : t) {
+                template.compile();
+            }
+            templates = t;
+        }
+        return t;
+    }
+
+    /**
+     * Returns the templates of one theme, in the order of {@link #getTemplates()}.
+     * A template is identified in saved sessions by its position in this list,
+     * so new templates should be added at the end.
+     *
+     * @param theme theme name
+     * @return templates of the theme, possibly empty
+     */
+    public static List<QuestionTemplate> getTemplates(String theme) {
+        List<QuestionTemplate> list = new ArrayList<>();
+        for (QuestionTemplate t : getTemplates()) {
+            if (t.getTheme().equals(theme)) {
+                list.add(t);
+            }
+        }
+        return list;
+    }
+
+    private static List<QuestionTemplate> createTemplates() {
+        List<QuestionTemplate> list = new ArrayList<>();
+
+        String theme1 = "ifs loops and operators";
+        list.add(new QuestionTemplate(theme1,
+            "Given:\n{code}\nwhat prints?",
+            Question.QuestionType.RADIO,
+            "int i={start};\nwhile(++i {op} {end}){\n printf(\"%d \", i);\n}",
+            null,
+            "++i increments i before evaluating the expression as opposed to i++.",
+            "start=-1..2", "op=<|<=", "end=2..5"));
+
+        list.add(new QuestionTemplate(theme1,
+            "What is the value of n after:\n{code}",
+            Question.QuestionType.NUMERIC,
+            "int n=0;\nint i={start};\ndo {\n n++;\n} while(i-- {op} {stop});",
+            "n",
+            "The do while loop first runs the code, then checks the condition; i-- compares the old value of i.",
+            "start=0..5", "op=>|>=", "stop=0..2"));
+
+        list.add(new QuestionTemplate(theme1,
+            "What is the value of s after:\n{code}",
+            Question.QuestionType.NUMERIC,
+            "int s=0;\nfor(int i={from}; i<{to}; i+={step}){\n s+=i;\n}",
+            "s",
+            "Write down i for every pass of the loop and add them up.",
+            "from=0..3", "to=4..9", "step=1..3"));
+
+        list.add(new QuestionTemplate(theme1,
+            "What is the value of y?\n{code}",
+            Question.QuestionType.NUMERIC,
+            "int x={x};\nint y=(x {shift} {n}) & {mask};",
+            "y",
+            "Shifting left by n multiplies by 2^n, shifting right divides; & keeps only the bits set in the mask.",
+            "x=1..15", "shift=<<|>>", "n=1..3", "mask=3..15"));
+
+        list.add(new QuestionTemplate(theme1,
+            "What prints?\n{code}",
+            Question.QuestionType.TEXT,
+            "int a={a}, b={b};\nprintf(\"%d\", a % b == 0 ? a / b : a % b);",
+            null,
+            "% gives the remainder of the division; the ternary picks a / b only when the remainder is 0.",
+            "a=6..20", "b=2..5"));
+
+        return list;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,323 @@
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * A question whose code snippet has placeholders (loop bounds, start values,
+ * operators) that are filled with seeded random values, so every quiz can show
+ * a fresh variant. The answer is not stored: it is computed by running the
+ * snippet with {@link CodeSnippet}.
+ *
+ * <p>Parameters are declared as {@code "name=lo..hi"} for an integer range or
+ * {@code "name=a|b|c"} for alternatives, such as operators. The prompt and the
+ * code refer to them as {@code {name}}; the prompt shows the code where it says
+ * {@code {code}}. The answer is the text the snippet prints, or the value of
+ * an answer expression over its variables after it ran.</p>
+ *
+ * <p>Supported types are TEXT and NUMERIC, whose answer is the result, and
+ * RADIO, whose wrong options are the results of neighbouring parameter values.
+ * Values for which the snippet fails (see {@link CodeSnippet.EvalException}),
+ * or that leave a RADIO question without a wrong option, are drawn again.</p>
+ *
+ * <p>The snippet, the answer expression and the prompt are compiled once, on
+ * first use, and cached, so an instance costs a few microseconds. The same
+ * seed always gives the same instance.</p>
+ *
+ * @author GasTheJuice
+ */
+public class QuestionTemplate {
+    /** Draws tried before an instance is given up */
+    public static final int MAX_ATTEMPTS = 50;
+
+    /** Option shown for a snippet that prints nothing */
+    public static final String NO_OUTPUT = "(nothing)";
+
+    private final String theme;
+    private final String prompt;
+    private final Question.QuestionType type;
+    private final String code;
+    private final String answer;
+    private final String hint;
+    private final String[] params;
+    private volatile Compiled compiled;
+
+    /** A question generated from a template */
+    public static final class Instance extends Question {
+        private static final long serialVersionUID = 1L;
+
+        private final transient QuestionTemplate template;
+        private final long seed;
+
+        private Instance(QuestionTemplate template, long seed, String prompt,
+                         List<String> options, List<String> answers) {
+            super(template.theme, prompt, template.type, options, answers, template.hint);
+            this.template = template;
+            this.seed = seed;
+        }
+
+        /** @return template this question was generated from */
+        public QuestionTemplate getTemplate() { return template; }
+
+        /** @return seed that regenerates this question */
+        public long getSeed() { return seed; }
+    }
+
+    /** Parsed form of a template, shared by all its instances */
+    private static final class Compiled {
+        final List<String> names = new ArrayList<>();
+        final List<String[]> choices = new ArrayList<>();
+        final int[] min;
+        final int[] max;
+        final CodeSnippet snippet;
+        final CodeSnippet.Expr answer;
+        /** Prompt cut at its placeholders: literal text, then a parameter index (-1 for the code), and so on */
+        final List<Object> promptParts;
+        final List<Object> codeParts;
+
+        Compiled(QuestionTemplate t) {
+            min = new int[t.params.length];
+            max = new int[t.params.length];
+            for (int i = 0; i < t.params.length; i++) {
+                String[] kv = t.params[i].split("=", 2);
+                if (kv.length < 2) {
+                    throw new IllegalArgumentException("Parameter needs name=lo..hi or name=a|b: " + t.params[i]);
+                }
+                names.add(kv[0].trim());
+                String spec = kv[1].trim();
+                int range = spec.indexOf("..");
+                if (range > 0 && !spec.contains("|")) {
+                    min[i] = Integer.parseInt(spec.substring(0, range).trim());
+                    max[i] = Integer.parseInt(spec.substring(range + 2).trim());
+                    if (min[i] > max[i]) {
+                        throw new IllegalArgumentException("Empty range: " + t.params[i]);
+                    }
+                    choices.add(null);
+                } else {
+                    String[] alternatives = spec.split("\\|");
+                    for (int a = 0; a < alternatives.length; a++) {
+                        alternatives[a] = alternatives[a].trim();
+                    }
+                    max[i] = alternatives.length - 1;
+                    choices.add(alternatives);
+                }
+            }
+            snippet = CodeSnippet.compile(t.code, names, choices);
+            answer = t.answer == null ? null : snippet.compileExpression(t.answer, names, choices);
+            codeParts = split(t.code);
+            promptParts = split(t.prompt);
+        }
+
+        /** Cuts text at {@code {name}} and {@code {code}} placeholders. */
+        private List<Object> split(String text) {
+            List<Object> parts = new ArrayList<>();
+            int literal = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) != '{') {
+                    continue;
+                }
+                int end = text.indexOf('}', i);
+                if (end < 0) {
+                    break;
+                }
+                String name = text.substring(i + 1, end);
+                int index = name.equals("code") ? -1 : names.indexOf(name);
+                if (index >= 0 || name.equals("code")) {
+                    parts.add(text.substring(literal, i));
+                    parts.add(index);
+                    literal = end + 1;
+                    i = end;
+                }
+            }
+            parts.add(text.substring(literal));
+            return parts;
+        }
+
+        String render(List<Object> parts, int[] values, String code) {
+            StringBuilder sb = new StringBuilder();
+            for (Object part : parts) {
+                if (part instanceof String) {
+                    sb.append((String) part);
+                } else {
+                    int p = (Integer) part;
+                    if (p < 0) {
+                        sb.append(code);
+                    } else {
+                        sb.append(choices.get(p) == null ? String.valueOf(values[p]) : choices.get(p)[values[p]]);
+                    }
+                }
+            }
+            return sb.toString();
+        }
+
+        /** @return the answer for some parameter values, or null if the snippet fails for them */
+        String evaluate(int[] values) {
+            try {
+                CodeSnippet.Frame f = snippet.run(values);
+                if (answer != null) {
+                    return String.valueOf(answer.eval(f));
+                }
+                String out = f.out.toString().trim();
+                return out.isEmpty() ? NO_OUTPUT : out;
+            } catch (CodeSnippet.EvalException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Creates a template.
+     *
+     * @param theme theme of the generated questions
+     * @param prompt question text; {@code {code}} is replaced by the snippet
+     * @param type TEXT, NUMERIC or RADIO
+     * @param code C snippet to run
+     * @param answer expression giving the answer after the run, or null for the printed output
+     * @param hint hint of the generated questions
+     * @param params parameter declarations, {@code "name=lo..hi"} or {@code "name=a|b|c"}
+     */
+    public QuestionTemplate(String theme, String prompt, Question.QuestionType type, String code,
+                            String answer, String hint, String... params) {
+        if (type != Question.QuestionType.TEXT && type != Question.QuestionType.NUMERIC
+                && type != Question.QuestionType.RADIO) {
+            throw new IllegalArgumentException("Templates cannot generate " + type + " questions");
+        }
+        this.theme = theme;
+        this.prompt = prompt;
+        this.type = type;
+        this.code = code;
+        this.answer = answer;
+        this.hint = hint;
+        this.params = params.clone();
+    }
+
+    /** @return theme of the generated questions */
+    public String getTheme() { return theme; }
+
+    /** @return type of the generated questions */
+    public Question.QuestionType getType() { return type; }
+
+    /**
+     * Parses the template if it has not been parsed yet. Called by the first
+     * {@link #instantiate(long)}; calling it up front reports a broken template early.
+     *
+     * @throws IllegalArgumentException if the template cannot be parsed
+     */
+    public void compile() {
+        compiled();
+    }
+
+    private Compiled compiled() {
+        Compiled c = compiled;
+        if (c == null) {
+            c = new Compiled(this);
+            compiled = c;
+        }
+        return c;
+    }
+
+    /**
+     * Generates the question for a seed.
+     *
+     * @param seed random seed; the same seed always gives the same question
+     * @return generated question
+     * @throws IllegalStateException if no valid parameter values were found in {@value #MAX_ATTEMPTS} draws
+     */
+    public Instance instantiate(long seed) {
+        Compiled c = compiled();
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[] values = new int[params.length];
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = c.min[i] + rnd.nextInt(c.max[i] - c.min[i] + 1);
+            }
+            String result = c.evaluate(values);
+            if (result == null) {
+                continue;
+            }
+            List<String> options = null;
+            if (type == Question.QuestionType.RADIO) {
+                options = options(c, values, result, rnd);
+                if (options == null) {
+                    continue;
+                }
+            }
+            String text = c.render(c.promptParts, values, c.render(c.codeParts, values, null));
+            return new Instance(this, seed, text, options, List.of(result));
+        }
+        throw new IllegalStateException("No valid values for template '"
+            + prompt.lines().findFirst().orElse("") + "' with seed " + seed);
+    }
+
+    /**
+     * Builds the options of a RADIO instance: the result and up to three wrong
+     * results from changing one parameter by one step, in random order.
+     *
+     * @return options, or null if no parameter change gives a different result
+     */
+    private static List<String> options(Compiled c, int[] values, String result, SplittableRandom rnd) {
+        Set<String> wrong = new LinkedHashSet<>();
+        int[] variant = values.clone();
+        for (int i = 0; i < values.length; i++) {
+            for (int delta = -1; delta <= 1; delta += 2) {
+                int v = values[i] + delta;
+                if (c.choices.get(i) != null) {
+                    v = Math.floorMod(v, c.choices.get(i).length);
+                }
+                variant[i] = v;
+                String other = c.evaluate(variant);
+                if (other != null && !other.equals(result)) {
+                    wrong.add(other);
+                }
+            }
+            variant[i] = values[i];
+        }
+        if (wrong.isEmpty()) {
+            return null;
+        }
+        List<String> picked = new ArrayList<>(wrong);
+        shuffle(picked, rnd);
+        List<String> options = new ArrayList<>(picked.subList(0, Math.min(3, picked.size())));
+        options.add(result);
+        shuffle(options, rnd);
+        return options;
+    }
+
+    private static void shuffle(List<String> list, SplittableRandom rnd) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            list.set(j, list.set(i, list.get(j)));
+        }
+    }
+
+    /**
+     * Prints a few instances of every built-in template and the cost of generating one.
+     *
+     * @param args optional number of instances per template (defaults to 3)
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        List<QuestionTemplate> templates = QuestionBank.getTemplates();
+        for (QuestionTemplate t : templates) {
+            t.compile();
+            for (int seed = 0; seed < n; seed++) {
+                Question q = t.instantiate(seed);
+                System.out.println("[" + q.getTheme() + "] " + q.getPrompt());
+                if (q.getOptions() != null) {
+                    System.out.println("  options: " + q.getOptions());
+                }
+                System.out.println("  answer: " + q.getAnswers().get(0));
+            }
+        }
+        int rounds = 200_000;
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += templates.get(i % templates.size()).instantiate(i).getPrompt().length();
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / rounds;
+        System.out.printf(Locale.US, "%d templates, %.2f us per instance (%d)%n", templates.size(), micros, sink % 10);
+    }
+}
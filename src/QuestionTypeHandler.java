@@ -0,0 +1,54 @@
+import javax.swing.JComponent;
+
+/**
+ * Renders, reads and grades questions of one {@link Question.QuestionType}.
+ * Handlers are shared between all questions of their type and must be stateless;
+ * per-question UI state lives in the {@link AnswerView} returned by {@link #render(Question)}.
+ *
+ * @author GasTheJuice
+ */
+public interface QuestionTypeHandler {
+
+    /** Input component for one displayed question and the means to read its answer */
+    interface AnswerView {
+
+        /** @return component placed below the prompt */
+        JComponent getComponent();
+
+        /**
+         * Choice types answer with the mask of the selected options, see
+         * {@link CompiledQuestion#encodeMask(long)}.
+         *
+         * @return the user's answer in string form, empty if none
+         */
+        String getUserAnswer();
+    }
+
+    /**
+     * Builds the input component for a question.
+     *
+     * @param question question to display
+     * @return view holding the input state
+     */
+    AnswerView render(Question question);
+
+    /**
+     * Grades an answer produced by {@link AnswerView#getUserAnswer()}.
+     *
+     * @param question question being answered
+     * @param answer user's answer string
+     * @return true if the answer is correct
+     */
+    boolean grade(Question question, String answer);
+
+    /**
+     * Turns an answer produced by {@link AnswerView#getUserAnswer()} into text for display.
+     *
+     * @param question question that was answered
+     * @param answer user's answer string
+     * @return readable answer; the answer itself unless the type encodes it
+     */
+    default String describe(Question question, String answer) {
+        return answer;
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * Service interface for question types, discovered with {@link java.util.ServiceLoader}
+ * through {@code META-INF/services/QuestionTypeProvider}.
+ * Providers must be cheap to instantiate; the actual handler, with its Swing
+ * and grading code, is only created (and its classes loaded) by {@link #create()}
+ * the first time a question of that type is shown or graded.
+ *
+ * @author GasTheJuice
+ */
+public interface QuestionTypeProvider {
+
+    /** @return the question type this provider handles */
+    Question.QuestionType type();
+
+    /** @return a new handler for the type */
+    QuestionTypeHandler create();
+}
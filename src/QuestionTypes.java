@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.swing.BoxLayout;
+import javax.swing.JPanel;
+
+/**
+ * Registry resolving question types to their handlers.
+ * Handlers are created on first use through {@link QuestionTypeProvider}s
+ * and cached per type, so a quiz only loads the types it actually contains.
+ *
+ * @author GasTheJuice
+ */
+public final class QuestionTypes {
+    private static final AtomicReferenceArray<QuestionTypeHandler> handlers =
+        new AtomicReferenceArray<>(Question.QuestionType.values().length);
+
+    private QuestionTypes() {}
+
+    /**
+     * Returns the handler for a type, loading it on first request.
+     *
+     * @param type question type
+     * @return handler for that type
+     * @throws IllegalStateException if no provider is registered for the type
+     */
+    public static QuestionTypeHandler handler(Question.QuestionType type) {
+        QuestionTypeHandler h = handlers.get(type.ordinal());
+        if (h == null) {
+            synchronized (handlers) {
+                h = handlers.get(type.ordinal());
+                if (h == null) {
+                    h = load(type);
+                    handlers.set(type.ordinal(), h);
+                }
+            }
+        }
+        return h;
+    }
+
+    private static QuestionTypeHandler load(Question.QuestionType type) {
+        for (QuestionTypeProvider provider : ServiceLoader.load(QuestionTypeProvider.class)) {
+            if (provider.type() == type) {
+                return provider.create();
+            }
+        }
+        throw new IllegalStateException("No question type provider registered for " + type);
+    }
+
+    /**
+     * Lists the options selected in a choice answer, for display.
+     *
+     * @param question choice question
+     * @param answer answer mask in string form
+     * @return selected options joined with ", ", or the answer itself if it is not a mask
+     */
+    static String describeChoices(Question question, String answer) {
+        long mask = CompiledQuestion.decodeMask(answer);
+        if (mask < 0) {
+            return answer;
+        }
+        List<String> selected = new ArrayList<>();
+        int options = Math.min(question.getOptions().size(), QuestionValidator.MAX_CHOICE_OPTIONS);
+        for (int i = 0; i < options; i++) {
+            if ((mask & (1L << i)) != 0) {
+                selected.add(question.getOptions().get(i));
+            }
+        }
+        return String.join(", ", selected);
+    }
+
+    /** @return an empty vertical panel, the usual container for answer inputs */
+    static JPanel column() {
+        JPanel center = new JPanel();
+        center.setLayout(new BoxLayout(center, BoxLayout.Y_AXIS));
+        return center;
+    }
+}
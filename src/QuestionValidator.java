@@ -0,0 +1,306 @@
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Validates question definitions and precompiles them into {@link CompiledQuestion}s.
+ * The whole bank is checked in parallel and every problem is collected into a
+ * single {@link Report}, instead of surfacing one at a time when a question is shown.
+ *
+ * @author GasTheJuice
+ */
+public final class QuestionValidator {
+
+    /** Most options a choice question may have, so its answers fit in a positive long mask */
+    public static final int MAX_CHOICE_OPTIONS = Long.SIZE - 1;
+
+    private QuestionValidator() {}
+
+    /** Severity of a diagnostic */
+    public enum Severity { WARNING, ERROR }
+
+    /** One problem found in a question */
+    public static final class Diagnostic {
+        private final int index;
+        private final Severity severity;
+        private final String message;
+
+        Diagnostic(int index, Severity severity, String message) {
+            this.index = index;
+            this.severity = severity;
+            this.message = message;
+        }
+
+        /** @return position of the question in the bank */
+        public int getIndex() { return index; }
+
+        /** @return severity of the problem */
+        public Severity getSeverity() { return severity; }
+
+        /** @return human readable description */
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return String.format("#%d %s: %s", index, severity, message);
+        }
+    }
+
+    /** All diagnostics of one validation pass, ordered by question index */
+    public static final class Report {
+        private final List<Diagnostic> diagnostics;
+        private final int questionCount;
+
+        Report(List<Diagnostic> diagnostics, int questionCount) {
+            this.diagnostics = diagnostics;
+            this.questionCount = questionCount;
+        }
+
+        /** @return all diagnostics */
+        public List<Diagnostic> getDiagnostics() { return diagnostics; }
+
+        /** @return true if any question has an error */
+        public boolean hasErrors() {
+            return diagnostics.stream().anyMatch(d -> d.severity == Severity.ERROR);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Validated %d questions: %d errors, %d warnings%n", questionCount,
+                diagnostics.stream().filter(d -> d.severity == Severity.ERROR).count(),
+                diagnostics.stream().filter(d -> d.severity == Severity.WARNING).count()));
+            for (Diagnostic d : diagnostics) {
+                sb.append(d).append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Validates and compiles every question of the bank in parallel.
+     * Each question gets its compiled form attached, valid or not.
+     *
+     * @param bank questions to check
+     * @return full diagnostic report
+     */
+    public static Report validateAll(List<Question> bank) {
+        ConcurrentLinkedQueue<Diagnostic> found = new ConcurrentLinkedQueue<>();
+        IntStream.range(0, bank.size()).parallel().forEach(i -> {
+            List<Diagnostic> local = new ArrayList<>();
+            Question q = bank.get(i);
+            q.setCompiled(compile(q, i, local));
+            found.addAll(local);
+        });
+        List<Diagnostic> sorted = new ArrayList<>(found);
+        sorted.sort((a, b) -> a.index != b.index ? Integer.compare(a.index, b.index)
+                                                  : b.severity.compareTo(a.severity));
+        return new Report(Collections.unmodifiableList(sorted), bank.size());
+    }
+
+    /**
+     * Compiles a single question, collecting its problems.
+     *
+     * @param q question to compile
+     * @param index position used in diagnostics
+     * @param out receives the diagnostics
+     * @return compiled form (marked invalid if there were errors)
+     */
+    static CompiledQuestion compile(Question q, int index, List<Diagnostic> out) {
+        int errorsBefore = countErrors(out);
+        if (q.getTheme() == null || q.getTheme().isBlank()) {
+            out.add(new Diagnostic(index, Severity.ERROR, "missing theme"));
+        }
+        if (q.getPrompt() == null || q.getPrompt().isBlank()) {
+            out.add(new Diagnostic(index, Severity.ERROR, "missing prompt"));
+        }
+        if (q.getType() != Question.QuestionType.IMAGE_CLICK && (q.getAnswers() == null || q.getAnswers().isEmpty())) {
+            out.add(new Diagnostic(index, Severity.ERROR, "no correct answers"));
+        }
+
+        Map<String, Integer> optionIndex = new HashMap<>();
+        int[] answerIndexes = new int[0];
+        long[] optionMasks = new long[0];
+        long answerMask = 0;
+        int min = 0, max = 0, initial = 0;
+        int[] sliderAnswers = new int[0];
+        double numeric = Double.NaN;
+        int width = -1, height = -1;
+
+        switch (q.getType()) {
+            case RADIO, CHECKBOX, COMBOBOX -> {
+                if (q.getOptions() == null || q.getOptions().isEmpty()) {
+                    out.add(new Diagnostic(index, Severity.ERROR, "choice question without options"));
+                    break;
+                }
+                if (q.getOptions().size() > MAX_CHOICE_OPTIONS) {
+                    out.add(new Diagnostic(index, Severity.ERROR,
+                        "choice question has more than " + MAX_CHOICE_OPTIONS + " options"));
+                    break;
+                }
+                optionMasks = new long[q.getOptions().size()];
+                for (int i = 0; i < q.getOptions().size(); i++) {
+                    Integer first = optionIndex.putIfAbsent(Question.normalize(q.getOptions().get(i)), i);
+                    if (first != null) {
+                        out.add(new Diagnostic(index, Severity.WARNING, "duplicate option \"" + q.getOptions().get(i) + "\""));
+                    }
+                    optionMasks[i] = 1L << (first != null ? first : i);
+                }
+                if (q.getAnswers() != null) {
+                    answerIndexes = new int[q.getAnswers().size()];
+                    for (int i = 0; i < answerIndexes.length; i++) {
+                        Integer idx = optionIndex.get(Question.normalize(q.getAnswers().get(i)));
+                        if (idx == null) {
+                            out.add(new Diagnostic(index, Severity.ERROR,
+                                "answer \"" + q.getAnswers().get(i) + "\" is not one of the options"));
+                            idx = -1;
+                        }
+                        answerIndexes[i] = idx;
+                        if (idx >= 0) {
+                            answerMask |= optionMasks[idx];
+                        }
+                    }
+                    if (q.getType() != Question.QuestionType.CHECKBOX && answerIndexes.length > 1) {
+                        out.add(new Diagnostic(index, Severity.WARNING, "single choice question lists several answers"));
+                    }
+                }
+            }
+            case SLIDER -> {
+                List<String> opts = q.getOptions();
+                if (opts == null || opts.size() < 2) {
+                    out.add(new Diagnostic(index, Severity.ERROR, "slider needs at least min and max options"));
+                    break;
+                }
+                try {
+                    min = Integer.parseInt(opts.get(0).trim());
+                    max = Integer.parseInt(opts.get(1).trim());
+                    initial = opts.size() > 2 ? Integer.parseInt(opts.get(2).trim()) : min;
+                } catch (NumberFormatException e) {
+                    out.add(new Diagnostic(index, Severity.ERROR, "slider range is not numeric: " + opts));
+                    break;
+                }
+                if (min >= max) {
+                    out.add(new Diagnostic(index, Severity.ERROR, "slider min " + min + " is not below max " + max));
+                }
+                if (initial < min || initial > max) {
+                    out.add(new Diagnostic(index, Severity.WARNING, "slider start " + initial + " is outside " + min + ".." + max));
+                    initial = Math.max(min, Math.min(max, initial));
+                }
+                if (q.getAnswers() != null) {
+                    sliderAnswers = new int[q.getAnswers().size()];
+                    int parsed = 0;
+                    for (String a : q.getAnswers()) {
+                        try {
+                            int v = Integer.parseInt(Question.normalize(a));
+                            sliderAnswers[parsed++] = v;
+                            if (v < min || v > max) {
+                                out.add(new Diagnostic(index, Severity.ERROR,
+                                    "slider answer " + v + " is outside " + min + ".." + max));
+                            }
+                        } catch (NumberFormatException e) {
+                            out.add(new Diagnostic(index, Severity.ERROR, "slider answer \"" + a + "\" is not an integer"));
+                        }
+                    }
+                    sliderAnswers = Arrays.copyOf(sliderAnswers, parsed);
+                }
+            }
+            case NUMERIC -> {
+                if (q.getAnswers() != null && !q.getAnswers().isEmpty()) {
+                    try {
+                        numeric = Double.parseDouble(Question.normalize(q.getAnswers().get(0)));
+                    } catch (NumberFormatException e) {
+                        out.add(new Diagnostic(index, Severity.ERROR, "numeric answer \"" + q.getAnswers().get(0) + "\" is not a number"));
+                    }
+                    if (q.getAnswers().size() > 1) {
+                        out.add(new Diagnostic(index, Severity.WARNING, "only the first numeric answer is graded"));
+                    }
+                }
+            }
+            case IMAGE_CLICK -> {
+                if (q.getImagePath() == null) {
+                    out.add(new Diagnostic(index, Severity.ERROR, "image question without image path"));
+                    break;
+                }
+                int[] size = readImageSize(new File(q.getImagePath()));
+                if (size == null) {
+                    out.add(new Diagnostic(index, Severity.ERROR, "image \"" + q.getImagePath() + "\" is missing or unreadable"));
+                } else {
+                    width = size[0];
+                    height = size[1];
+                }
+                if (q.getCorrectAreas() == null || q.getCorrectAreas().isEmpty()) {
+                    out.add(new Diagnostic(index, Severity.ERROR, "image question without correct areas"));
+                } else if (size != null) {
+                    Rectangle bounds = new Rectangle(0, 0, width, height);
+                    for (Rectangle r : q.getCorrectAreas()) {
+                        if (!bounds.contains(r)) {
+                            out.add(new Diagnostic(index, Severity.WARNING, "correct area " + r + " extends outside the image"));
+                        }
+                    }
+                }
+            }
+            default -> {}
+        }
+        return new CompiledQuestion(countErrors(out) == errorsBefore, Collections.unmodifiableMap(optionIndex),
+                                    answerIndexes, optionMasks, answerMask, min, max, initial, sliderAnswers,
+                                    numeric, width, height);
+    }
+
+    private static int countErrors(List<Diagnostic> diagnostics) {
+        int n = 0;
+        for (Diagnostic d : diagnostics) {
+            if (d.severity == Severity.ERROR) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** Reads only the image header; returns {width, height} or null. */
+    private static int[] readImageSize(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                return new int[] {reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Command-line check of the question bank; exits with status 1 on errors.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        Report report = validateAll(QuestionBank.loadQuestions());
+        System.out.print(report);
+        System.exit(report.hasErrors() ? 1 : 0);
+    }
+}
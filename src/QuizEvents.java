@@ -0,0 +1,104 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the quiz lifecycle and slow operations.
+ * When no recording is running, {@code shouldCommit()} is a cheap check and
+ * the event objects are usually scalar-replaced by the JIT.
+ *
+ * <p>Record with {@code java -XX:StartFlightRecording=filename=quiz.jfr MainFrame}
+ * and look for the "Quiz App" category in JDK Mission Control.</p>
+ *
+ * @author GasTheJuice
+ */
+public final class QuizEvents {
+
+    private QuizEvents() {}
+
+    @Name("quizapp.QuizStarted")
+    @Label("Quiz Started")
+    @Category("Quiz App")
+    @StackTrace(false)
+    public static final class QuizStarted extends Event {
+        @Label("Theme")
+        public String theme;
+
+        @Label("Question Count")
+        public int questionCount;
+    }
+
+    @Name("quizapp.QuestionShown")
+    @Label("Question Shown")
+    @Category("Quiz App")
+    @StackTrace(false)
+    public static final class QuestionShown extends Event {
+        @Label("Index")
+        public int index;
+
+        @Label("Type")
+        public String type;
+    }
+
+    @Name("quizapp.AnswerGraded")
+    @Label("Answer Graded")
+    @Category("Quiz App")
+    @StackTrace(false)
+    public static final class AnswerGraded extends Event {
+        @Label("Type")
+        public String type;
+
+        @Label("Correct")
+        public boolean correct;
+    }
+
+    @Name("quizapp.HintUsed")
+    @Label("Hint Used")
+    @Category("Quiz App")
+    @StackTrace(false)
+    public static final class HintUsed extends Event {
+        @Label("Index")
+        public int index;
+    }
+
+    @Name("quizapp.StatsAppend")
+    @Label("Stats Append")
+    @Category({"Quiz App", "I/O"})
+    @Description("One result appended to this process's stats segment")
+    public static final class StatsAppend extends Event {
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("quizapp.HistoryRead")
+    @Label("History Read")
+    @Category({"Quiz App", "I/O"})
+    @Description("Full merge of the live stats segments")
+    public static final class HistoryRead extends Event {
+        @Label("Rows")
+        public int rows;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("quizapp.ImageDecode")
+    @Label("Image Decode")
+    @Category({"Quiz App", "I/O"})
+    public static final class ImageDecode extends Event {
+        @Label("Path")
+        public String path;
+
+        @Label("Width")
+        public int width;
+
+        @Label("Height")
+        public int height;
+    }
+}
@@ -2,9 +2,8 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Manages the state and flow of a single quiz session.
@@ -13,50 +12,174 @@ import java.util.Map;
  * @author GasTheJuice
  */
 public class QuizManager {
-    private final List<Question> allQuestions;
+    private final ThemeCatalog catalog;
     private List<Question> currentQuizQuestions;
+    private String theme;
+    private int[] bankIndexes;
+    private int hintsUsed = 0;
     private int currentIndex = 0;
     private int correctCount = 0;
     private int wrongCount = 0;
     private Instant startTime, endTime;
     private int timeLimitSeconds = 0;
-    private Map<Question, String> userAnswers;
+    private String[] userAnswers;
+    private long[] shownAtNanos;
+    private long[] responseNanos;
+    private boolean[] verdicts;
+    private SessionJournal journal;
+    private TimingWheel.Timeout deadline;
 
     /**
-     * Creates a manager with access to all available questions.
+     * Creates a manager with access to all themes of the catalog.
+     * A theme's questions are only loaded when a quiz for it starts.
      * 
-     * @param allQuestions complete question bank
+     * @param catalog catalog of the question bank
      */
-    public QuizManager(List<Question> allQuestions) {
-        this.allQuestions = new ArrayList<>(allQuestions);
+    public QuizManager(ThemeCatalog catalog) {
+        this.catalog = catalog;
     }
 
     /**
      * Starts a new quiz for the given theme with specified number of questions.
+     * Each template of the theme competes for a place like one more question
+     * and, when picked, contributes a freshly generated instance.
      * 
      * @param theme theme to filter questions
      * @param questionCount number of questions to include
+     * @throws java.io.UncheckedIOException if the theme's questions cannot be loaded;
+     *         the previous quiz is left untouched
      */
     public void startQuizForTheme(String theme, int questionCount) {
-        List<Question> filtered = new ArrayList<>();
-        for (Question q : allQuestions) {
-            if (q.getTheme().equals(theme)) {
-                filtered.add(q);
-            }
+        List<Question> themeQuestions = catalog.getQuestions(theme);
+        if (themeQuestions == null) {
+            themeQuestions = List.of();
+        }
+        List<QuestionTemplate> templates = QuestionBank.getTemplates(theme);
+        List<Integer> filtered = new ArrayList<>(themeQuestions.size() + templates.size());
+        for (int i = 0; i < themeQuestions.size(); i++) {
+            filtered.add(i);
+        }
+        for (int t = 0; t < templates.size(); t++) {
+            filtered.add(-(t + 1));
         }
         Collections.shuffle(filtered);
         if (questionCount > filtered.size()) {
             questionCount = filtered.size();
         }
-        currentQuizQuestions = filtered.subList(0, questionCount);
+        int[] picked = new int[questionCount];
+        long[] seeds = new long[questionCount];
+        for (int i = 0; i < questionCount; i++) {
+            picked[i] = filtered.get(i);
+            if (picked[i] < 0) {
+                seeds[i] = ThreadLocalRandom.current().nextLong();
+            }
+        }
+        begin(theme, themeQuestions, templates, picked, seeds);
+        startTime = Instant.now();
+        QuizMetrics.get().quizStarted(theme);
+        QuizEvents.QuizStarted event = new QuizEvents.QuizStarted();
+        if (event.shouldCommit()) {
+            event.theme = theme;
+            event.questionCount = questionCount;
+            event.commit();
+        }
+        if (journal != null) {
+            journal.start(theme, timeLimitSeconds, currentQuizQuestions, bankIndexes);
+        }
+    }
+
+    /**
+     * Rebuilds an interrupted quiz from its journal. The clock resumes
+     * from the last journaled elapsed time, so downtime is not counted,
+     * and the attached journal continues where the replay ended.
+     * 
+     * @param replay state read by {@link SessionJournal#replay(ThemeCatalog)}
+     */
+    public void restore(SessionJournal.Replay replay) {
+        begin(replay.theme, replay.themeQuestions, replay.templates, replay.bankIndexes, replay.seeds);
+        timeLimitSeconds = replay.timeLimitSeconds;
+        currentIndex = replay.currentIndex;
+        correctCount = replay.correctCount;
+        wrongCount = replay.wrongCount;
+        hintsUsed = replay.hintsUsed;
+        System.arraycopy(replay.answers, 0, userAnswers, 0, userAnswers.length);
+        System.arraycopy(replay.responseNanos, 0, responseNanos, 0, responseNanos.length);
+        System.arraycopy(replay.verdicts, 0, verdicts, 0, verdicts.length);
+        startTime = Instant.now().minusMillis(replay.elapsedMillis);
+        if (journal != null) {
+            journal.resume(replay);
+        }
+    }
+
+    /**
+     * Resets the session state for the given questions of the theme.
+     * Negative positions {@code -(t + 1)} stand for template t, instantiated with the matching seed.
+     */
+    private void begin(String theme, List<Question> themeQuestions, List<QuestionTemplate> templates,
+                       int[] picked, long[] seeds) {
+        List<Question> questions = new ArrayList<>(picked.length);
+        for (int i = 0; i < picked.length; i++) {
+            int idx = picked[i];
+            questions.add(idx >= 0 ? themeQuestions.get(idx) : templates.get(-idx - 1).instantiate(seeds[i]));
+        }
+        if (deadline != null) {
+            // A reused manager must not let the previous quiz's time limit submit this one.
+            deadline.cancel();
+            deadline = null;
+        }
+        this.theme = theme;
+        this.bankIndexes = picked;
+        currentQuizQuestions = questions;
         currentIndex = 0;
         correctCount = 0;
         wrongCount = 0;
-        startTime = Instant.now();
+        hintsUsed = 0;
         endTime = null;
-        userAnswers = new HashMap<>();
+        userAnswers = new String[picked.length];
+        shownAtNanos = new long[picked.length];
+        responseNanos = new long[picked.length];
+        verdicts = new boolean[picked.length];
+    }
+
+    /**
+     * Attaches a journal that receives every state change of the session.
+     * Must be set before {@link #startQuizForTheme(String, int)}.
+     * 
+     * @param journal journal to write to, or null to disable journaling
+     */
+    public void setJournal(SessionJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Arms the time limit of the current quiz on a shared timing wheel, for
+     * the time still left on the clock. The deadline is cancelled by
+     * {@link #finish()}; a quiz without a time limit gets no deadline.
+     * The callback runs on the wheel's executor and must synchronize with
+     * whatever thread drives this session before submitting it.
+     *
+     * @param wheel wheel tracking the deadlines of all sessions
+     * @param onExpired auto-submit action, run once the time is up
+     */
+    public void scheduleDeadline(TimingWheel wheel, Runnable onExpired) {
+        if (deadline != null) {
+            deadline.cancel();
+            deadline = null;
+        }
+        if (timeLimitSeconds > 0) {
+            deadline = wheel.schedule(timeLimitSeconds * 1000L - getElapsedMillis(), onExpired);
+        }
     }
 
+    /** @return true once {@link #finish()} was called for the current quiz */
+    public boolean isFinished() { return endTime != null; }
+
+    /** @return theme of the current quiz */
+    public String getTheme() { return theme; }
+
+    /** @return number of hints shown in the current quiz */
+    public int getHintsUsed() { return hintsUsed; }
+
     /** @return total number of questions in current quiz */
     public int getQuestionCount() { return currentQuizQuestions.size(); }
 
@@ -75,8 +198,37 @@ public class QuizManager {
     /** @return time limit in seconds */
     public int getTimeLimitSeconds() { return timeLimitSeconds; }
 
-    /** @return map of questions to user answers */
-    public Map<Question, String> getUserAnswers() { return userAnswers; }
+    /**
+     * Returns the question at a position in the current quiz.
+     * 
+     * @param index zero-based question position
+     * @return question at that position
+     */
+    public Question getQuestion(int index) { return currentQuizQuestions.get(index); }
+
+    /**
+     * Returns the answer stored for a position in the current quiz.
+     * 
+     * @param index zero-based question position
+     * @return user's raw answer, or null if the question was never answered
+     */
+    public String getUserAnswer(int index) { return userAnswers[index]; }
+
+    /**
+     * Returns the total time the question at a position was on screen.
+     * 
+     * @param index zero-based question position
+     * @return response time in nanoseconds, 0 if not yet answered
+     */
+    public long getResponseNanos(int index) { return responseNanos[index]; }
+
+    /**
+     * Returns the verdict recorded for a position in the current quiz.
+     * 
+     * @param index zero-based question position
+     * @return true if the recorded answer was correct
+     */
+    public boolean isAnswerCorrect(int index) { return verdicts[index]; }
 
     /** @return percentage of correct answers */
     public double getPercentage() {
@@ -90,10 +242,30 @@ public class QuizManager {
         return Duration.between(startTime, end).getSeconds();
     }
 
+    private long getElapsedMillis() {
+        return Duration.between(startTime, Instant.now()).toMillis();
+    }
+
     /** Advances to the next question if available */
     public void nextQuestion() {
         if (currentIndex < currentQuizQuestions.size() - 1) {
             currentIndex++;
+            if (journal != null) {
+                journal.nextQuestion(getElapsedMillis(), currentIndex);
+            }
+        }
+    }
+
+    /** Counts a hint shown for the current question */
+    public void useHint() {
+        hintsUsed++;
+        QuizEvents.HintUsed event = new QuizEvents.HintUsed();
+        if (event.shouldCommit()) {
+            event.index = currentIndex;
+            event.commit();
+        }
+        if (journal != null) {
+            journal.hintUsed(getElapsedMillis());
         }
     }
 
@@ -103,25 +275,68 @@ public class QuizManager {
      * @param correct true if answer was correct
      */
     public void recordAnswer(boolean correct) {
+        verdicts[currentIndex] = correct;
         if (correct) {
             correctCount++;
         } else {
             wrongCount++;
         }
+        if (journal != null) {
+            journal.recordAnswer(getElapsedMillis(), correct);
+        }
+    }
+
+    /** Records the moment the current question is shown to the user */
+    public void markShown() {
+        shownAtNanos[currentIndex] = System.nanoTime();
+        QuizEvents.QuestionShown event = new QuizEvents.QuestionShown();
+        if (event.shouldCommit()) {
+            event.index = currentIndex;
+            event.type = getCurrentQuestion().getType().name();
+            event.commit();
+        }
     }
 
     /**
-     * Stores the user's raw answer string.
+     * Stores the user's raw answer string for the current question
+     * and adds the time since {@link #markShown()} to its response time.
      * 
      * @param ans user's answer
      */
     public void storeAnswer(String ans) {
-        this.userAnswers.put(getCurrentQuestion(), ans);
+        userAnswers[currentIndex] = ans;
+        if (shownAtNanos[currentIndex] != 0) {
+            responseNanos[currentIndex] += System.nanoTime() - shownAtNanos[currentIndex];
+            shownAtNanos[currentIndex] = 0;
+        }
+        if (journal != null) {
+            journal.storeAnswer(getElapsedMillis(), currentIndex, ans, responseNanos[currentIndex]);
+        }
     }
 
-    /** Marks the quiz as finished and records end time */
+    /**
+     * Marks the quiz as finished, records end time, cancels its deadline
+     * and counts the wrong free-form answers in {@link AnswerSketches}.
+     */
     public void finish() {
         endTime = Instant.now();
+        if (deadline != null) {
+            deadline.cancel();
+            deadline = null;
+        }
+        QuizMetrics.get().quizFinished(theme);
+        for (int i = 0; i < currentQuizQuestions.size(); i++) {
+            if (!verdicts[i] && userAnswers[i] != null) {
+                AnswerSketches.recordWrong(currentQuizQuestions.get(i), userAnswers[i]);
+            }
+        }
+    }
+
+    /** Discards the journal once the finished quiz has been persisted */
+    public void discardJournal() {
+        if (journal != null) {
+            journal.clear();
+        }
     }
 
     /**
@@ -0,0 +1,150 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide counters and latency histograms for the quiz and its I/O.
+ * Recording is lock-free, so the hooks stay in place whether or not a
+ * JMX client is attached.
+ *
+ * @author GasTheJuice
+ */
+public final class QuizMetrics implements QuizMetricsMXBean {
+    private static final QuizMetrics INSTANCE = new QuizMetrics();
+
+    private final Map<String, LongAdder> started = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> finished = new ConcurrentHashMap<>();
+    private final LongAdder[] graded = new LongAdder[Question.QuestionType.values().length];
+    private final LatencyHistogram gradingLatency = new LatencyHistogram();
+    private final LatencyHistogram appendLatency = new LatencyHistogram();
+    private final LatencyHistogram readLatency = new LatencyHistogram();
+    private final LatencyHistogram imageLatency = new LatencyHistogram();
+    private final LongAdder bytesWritten = new LongAdder();
+    private volatile Thread musicThread;
+
+    private QuizMetrics() {
+        for (int i = 0; i < graded.length; i++) {
+            graded[i] = new LongAdder();
+        }
+    }
+
+    /** @return the shared metrics instance */
+    public static QuizMetrics get() {
+        return INSTANCE;
+    }
+
+    /** Registers the metrics with the platform MBean server; safe to call more than once. */
+    public static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("QuizApp:type=QuizMetrics");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** @param theme theme of the quiz that was started */
+    public void quizStarted(String theme) {
+        started.computeIfAbsent(theme, k -> new LongAdder()).increment();
+    }
+
+    /** @param theme theme of the quiz that was finished */
+    public void quizFinished(String theme) {
+        finished.computeIfAbsent(theme, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records one graded answer.
+     *
+     * @param type question type
+     * @param nanos time spent grading
+     */
+    public void answerGraded(Question.QuestionType type, long nanos) {
+        graded[type.ordinal()].increment();
+        gradingLatency.record(nanos);
+    }
+
+    /**
+     * Records one append to the stats files.
+     *
+     * @param nanos time spent appending
+     * @param bytes bytes written
+     */
+    public void statsAppended(long nanos, long bytes) {
+        appendLatency.record(nanos);
+        bytesWritten.add(bytes);
+    }
+
+    /** @param nanos time spent reading the history */
+    public void historyRead(long nanos) {
+        readLatency.record(nanos);
+    }
+
+    /** @param nanos time spent reading one image that was not cached */
+    public void imageLoaded(long nanos) {
+        imageLatency.record(nanos);
+    }
+
+    /** @param thread current background music thread, or null */
+    public void setMusicThread(Thread thread) {
+        this.musicThread = thread;
+    }
+
+    @Override
+    public Map<String, Long> getQuizzesStarted() { return toMap(started); }
+
+    @Override
+    public Map<String, Long> getQuizzesFinished() { return toMap(finished); }
+
+    @Override
+    public Map<String, Long> getAnswersGraded() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Question.QuestionType t : Question.QuestionType.values()) {
+            result.put(t.name(), graded[t.ordinal()].sum());
+        }
+        return result;
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getGradingLatency() { return gradingLatency.snapshot(); }
+
+    @Override
+    public LatencyHistogram.Snapshot getStatsAppendLatency() { return appendLatency.snapshot(); }
+
+    @Override
+    public LatencyHistogram.Snapshot getStatsReadLatency() { return readLatency.snapshot(); }
+
+    @Override
+    public long getStatsBytesWritten() { return bytesWritten.sum(); }
+
+    @Override
+    public LatencyHistogram.Snapshot getImageLoadLatency() { return imageLatency.snapshot(); }
+
+    @Override
+    public String getMusicThreadState() {
+        Thread t = musicThread;
+        return t == null ? "NONE" : t.getState().name();
+    }
+
+    @Override
+    public void resetHistograms() {
+        gradingLatency.reset();
+        appendLatency.reset();
+        readLatency.reset();
+        imageLatency.reset();
+    }
+
+    private static Map<String, Long> toMap(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((k, v) -> result.put(k, v.sum()));
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+import java.util.Map;
+
+/**
+ * Management interface of {@link QuizMetrics}, readable from any JMX client
+ * (e.g. JConsole or VisualVM) under {@code QuizApp:type=QuizMetrics}.
+ *
+ * @author GasTheJuice
+ */
+public interface QuizMetricsMXBean {
+
+    /** @return number of quizzes started, per theme */
+    Map<String, Long> getQuizzesStarted();
+
+    /** @return number of quizzes finished, per theme */
+    Map<String, Long> getQuizzesFinished();
+
+    /** @return number of graded answers, per question type */
+    Map<String, Long> getAnswersGraded();
+
+    /** @return latency of grading a single answer */
+    LatencyHistogram.Snapshot getGradingLatency();
+
+    /** @return latency of appending one result to the stats files */
+    LatencyHistogram.Snapshot getStatsAppendLatency();
+
+    /** @return latency of reading the full history */
+    LatencyHistogram.Snapshot getStatsReadLatency();
+
+    /** @return total bytes appended to the stats files */
+    long getStatsBytesWritten();
+
+    /** @return time taken to read question images, cache hits excluded */
+    LatencyHistogram.Snapshot getImageLoadLatency();
+
+    /** @return state of the background music thread, or NONE if there is none */
+    String getMusicThreadState();
+
+    /** Clears all latency histograms; counters are kept. */
+    void resetHistograms();
+}
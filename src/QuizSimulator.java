@@ -0,0 +1,359 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless load generator that runs synthetic students through the full
+ * start, answer, finish and persist path without any Swing components.
+ *
+ * <p>Each student answers correctly with a configurable probability, "thinks"
+ * for a log-normally distributed time per question and opens the hint with a
+ * configurable probability. Results go to a throwaway stats file unless
+ * {@code --stats=} points somewhere else; wrong answers are sketched next to it.</p>
+ *
+ * <p>All time limits are tracked by one shared {@link TimingWheel}. The limit is
+ * scaled like the think times (rounded up to whole seconds), and a student who
+ * runs out of time is auto-submitted by the wheel with the answers given so far.</p>
+ *
+ * <pre>
+ * java QuizSimulator --students=5000 --threads=64 --accuracy=0.7
+ *                    --think-ms=8000 --time-scale=0 --hint-rate=0.2 --questions=12
+ *                    --time-limit=600
+ * </pre>
+ *
+ * @author GasTheJuice
+ */
+public class QuizSimulator {
+    private int students = 1000;
+    private int threads = Runtime.getRuntime().availableProcessors() * 4;
+    private double accuracy = 0.7;
+    private double thinkMillis = 8000;
+    private double timeScale = 0;
+    private double hintRate = 0.2;
+    private int questionsPerQuiz = 12;
+    private int timeLimitSeconds = 600;
+    private long seed = 42;
+    private String theme;
+
+    /** Outcome of one simulated student */
+    private static final class Session {
+        long beginNanos;
+        long sessionNanos;
+        long persistNanos;
+        boolean autoSubmitted;
+        int correct;
+        int intendedCorrect;
+        int graded;
+        int mismatches;
+    }
+
+    /**
+     * Runs the simulation and prints a report to standard output.
+     *
+     * @param args {@code --name=value} options, see class description
+     */
+    public static void main(String[] args) {
+        QuizSimulator sim = new QuizSimulator();
+        String statsFile = null;
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "students" -> sim.students = Integer.parseInt(value);
+                case "threads" -> sim.threads = Integer.parseInt(value);
+                case "accuracy" -> sim.accuracy = Double.parseDouble(value);
+                case "think-ms" -> sim.thinkMillis = Double.parseDouble(value);
+                case "time-scale" -> sim.timeScale = Double.parseDouble(value);
+                case "hint-rate" -> sim.hintRate = Double.parseDouble(value);
+                case "questions" -> sim.questionsPerQuiz = Integer.parseInt(value);
+                case "time-limit" -> sim.timeLimitSeconds = Integer.parseInt(value);
+                case "seed" -> sim.seed = Long.parseLong(value);
+                case "theme" -> sim.theme = value;
+                case "stats" -> statsFile = value;
+                default -> {
+                    System.err.println("Unknown option: " + arg);
+                    System.exit(2);
+                }
+            }
+        }
+
+        // Without --stats, the history, digests, sketches and their locks all go to one
+        // temporary directory that is removed after the run.
+        Path tmpDir = null;
+        try {
+            if (statsFile == null) {
+                tmpDir = Files.createTempDirectory("quizapp_sim_");
+                statsFile = tmpDir.resolve("stats.csv").toString();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        // Must be set before StatsManager and AnswerSketches are first loaded.
+        System.setProperty("quizapp.stats.file", statsFile);
+        if (System.getProperty("quizapp.sketch.file") == null) {
+            System.setProperty("quizapp.sketch.file", statsFile.replaceFirst("\\.csv$", "") + ".sketch");
+        }
+
+        sim.run(QuestionBank.loadCatalog());
+        if (tmpDir != null) {
+            deleteRecursively(tmpDir);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(p);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs all students against the given catalog and prints the report.
+     *
+     * @param catalog theme catalog shared by all students
+     */
+    public void run(ThemeCatalog catalog) {
+        List<String> themes = catalog.getThemes();
+        Session[] sessions = new Session[students];
+        AtomicInteger failures = new AtomicInteger();
+
+        ExecutorService expiries = Executors.newFixedThreadPool(2);
+        TimingWheel wheel = new TimingWheel(expiries);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < students; i++) {
+            int id = i;
+            pool.execute(() -> {
+                try {
+                    SplittableRandom rnd = new SplittableRandom(seed + id);
+                    String t = theme != null ? theme : themes.get(rnd.nextInt(themes.size()));
+                    sessions[id] = simulate(new QuizManager(catalog), wheel, "student-" + id, t, rnd);
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    e.printStackTrace();
+                }
+            });
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long wallNanos = System.nanoTime() - start;
+        int leftPending = wheel.size();
+        wheel.close();
+        expiries.shutdown();
+        try {
+            // Auto-submits already handed off by the wheel must land before results are saved.
+            expiries.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        AnswerSketches.save();
+        StatsManager.flushDigests();
+
+        report(sessions, failures.get(), wallNanos);
+        long autoSubmitted = Arrays.stream(sessions).filter(s -> s != null && s.autoSubmitted).count();
+        System.out.printf(Locale.US, "Deadlines: %d auto-submitted, %d left on the wheel%n", autoSubmitted, leftPending);
+    }
+
+    /**
+     * Runs one student. The session is driven by this thread and, once its time
+     * is up, by the wheel's auto-submit; both hold the manager's lock while
+     * touching it, and whichever finishes the quiz first persists it.
+     */
+    private Session simulate(QuizManager manager, TimingWheel wheel, String player, String quizTheme,
+                             SplittableRandom rnd) {
+        Session s = new Session();
+        s.beginNanos = System.nanoTime();
+
+        synchronized (manager) {
+            manager.setTimeLimitSeconds(timeScale > 0
+                ? (int) Math.max(1, Math.ceil(timeLimitSeconds * timeScale)) : timeLimitSeconds);
+            manager.startQuizForTheme(quizTheme, questionsPerQuiz);
+            manager.scheduleDeadline(wheel, () -> {
+                synchronized (manager) {
+                    if (!manager.isFinished()) {
+                        s.autoSubmitted = true;
+                        submit(manager, player, quizTheme, s);
+                    }
+                }
+            });
+        }
+        for (int i = 0; i < manager.getQuestionCount(); i++) {
+            Question q;
+            synchronized (manager) {
+                if (manager.isFinished()) {
+                    break;
+                }
+                q = manager.getCurrentQuestion();
+                manager.markShown();
+            }
+            think(rnd);
+            boolean hint = q.getHint() != null && rnd.nextDouble() < hintRate;
+            boolean intended = rnd.nextDouble() < accuracy;
+            String answer = intended ? correctAnswer(q) : wrongAnswer(q, rnd);
+            boolean correct = q.isCorrect(answer);
+            synchronized (manager) {
+                if (manager.isFinished()) {
+                    break;
+                }
+                if (hint) {
+                    manager.useHint();
+                }
+                manager.recordAnswer(correct);
+                manager.storeAnswer(answer);
+                manager.nextQuestion();
+
+                s.graded++;
+                if (correct) {
+                    s.correct++;
+                }
+                if (intended) {
+                    s.intendedCorrect++;
+                }
+                if (correct != intended) {
+                    s.mismatches++;
+                }
+            }
+        }
+        synchronized (manager) {
+            if (!manager.isFinished()) {
+                submit(manager, player, quizTheme, s);
+            }
+        }
+        return s;
+    }
+
+    /** Finishes and persists a session; the caller holds the manager's lock. */
+    private static void submit(QuizManager manager, String player, String quizTheme, Session s) {
+        manager.finish();
+        long persistStart = System.nanoTime();
+        StatsManager.append(player, quizTheme, manager.getCorrectCount(), manager.getWrongCount(),
+                            manager.getPercentage(), manager.getHintsUsed(), manager.getElapsedSeconds());
+        long end = System.nanoTime();
+
+        s.persistNanos = end - persistStart;
+        s.sessionNanos = end - s.beginNanos;
+    }
+
+    /** Sleeps for a log-normal think time scaled by {@code timeScale}; no-op when the scale is 0. */
+    private void think(SplittableRandom rnd) {
+        if (timeScale <= 0) {
+            return;
+        }
+        double u1 = 1.0 - rnd.nextDouble();
+        double u2 = rnd.nextDouble();
+        double gaussian = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        long millis = (long) (thinkMillis * Math.exp(0.5 * gaussian - 0.125) * timeScale);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Builds the answer string a student would submit when answering correctly.
+     *
+     * @param q question being answered
+     * @return answer in {@link QuestionPanel#getUserAnswer()} form
+     */
+    static String correctAnswer(Question q) {
+        return switch (q.getType()) {
+            case IMAGE_CLICK -> "correct";
+            case CHECKBOX -> CompiledQuestion.encodeMask(q.getCompiled().getAnswerMask());
+            case RADIO, COMBOBOX -> CompiledQuestion.encodeMask(
+                q.getCompiled().getOptionMask(q.getCompiled().getAnswerIndexes()[0]));
+            default -> q.getAnswers().get(0);
+        };
+    }
+
+    /**
+     * Builds a plausible wrong answer for a question.
+     *
+     * @param q question being answered
+     * @param rnd random source
+     * @return answer in {@link QuestionPanel#getUserAnswer()} form
+     */
+    static String wrongAnswer(Question q, SplittableRandom rnd) {
+        switch (q.getType()) {
+            case RADIO, COMBOBOX -> {
+                CompiledQuestion c = q.getCompiled();
+                List<Long> wrong = new ArrayList<>();
+                for (int i = 0; i < q.getOptions().size(); i++) {
+                    if ((c.getOptionMask(i) & c.getAnswerMask()) == 0) {
+                        wrong.add(c.getOptionMask(i));
+                    }
+                }
+                return wrong.isEmpty() ? "" : CompiledQuestion.encodeMask(wrong.get(rnd.nextInt(wrong.size())));
+            }
+            case CHECKBOX -> {
+                CompiledQuestion c = q.getCompiled();
+                long flip = c.getOptionMask(rnd.nextInt(q.getOptions().size()));
+                return CompiledQuestion.encodeMask(c.getAnswerMask() ^ flip);
+            }
+            case NUMERIC, SLIDER -> {
+                return String.valueOf(Integer.parseInt(q.getAnswers().get(0).trim()) + 1 + rnd.nextInt(3));
+            }
+            case IMAGE_CLICK -> {
+                return "wrong";
+            }
+            default -> {
+                return "no idea";
+            }
+        }
+    }
+
+    private void report(Session[] sessions, int failures, long wallNanos) {
+        long[] latency = Arrays.stream(sessions).filter(s -> s != null).mapToLong(s -> s.sessionNanos).sorted().toArray();
+        long[] persist = Arrays.stream(sessions).filter(s -> s != null).mapToLong(s -> s.persistNanos).sorted().toArray();
+        long graded = 0, correct = 0, intended = 0, mismatches = 0;
+        for (Session s : sessions) {
+            if (s != null) {
+                graded += s.graded;
+                correct += s.correct;
+                intended += s.intendedCorrect;
+                mismatches += s.mismatches;
+            }
+        }
+        double seconds = wallNanos / 1e9;
+
+        System.out.printf(Locale.US, "Students: %d (%d failed) on %d threads in %.2fs%n",
+                          latency.length, failures, threads, seconds);
+        System.out.printf(Locale.US, "Throughput: %.1f quizzes/s, %.1f answers/s%n",
+                          latency.length / seconds, graded / seconds);
+        System.out.printf(Locale.US, "Session latency ms: p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n",
+                          percentile(latency, 50), percentile(latency, 90), percentile(latency, 99), percentile(latency, 100));
+        System.out.printf(Locale.US, "Persist latency ms: p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n",
+                          percentile(persist, 50), percentile(persist, 90), percentile(persist, 99), percentile(persist, 100));
+        System.out.printf(Locale.US, "Correctness: %.2f%% graded correct, %.2f%% intended, %d grading mismatches%n",
+                          graded == 0 ? 0 : 100.0 * correct / graded,
+                          graded == 0 ? 0 : 100.0 * intended / graded, mismatches);
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))] / 1e6;
+    }
+}
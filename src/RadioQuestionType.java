@@ -0,0 +1,63 @@
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractButton;
+import javax.swing.ButtonGroup;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JRadioButton;
+
+/**
+ * Single choice question shown as a group of radio buttons.
+ * The answer is the mask of the selected option.
+ *
+ * @author GasTheJuice
+ */
+public class RadioQuestionType implements QuestionTypeProvider {
+
+    @Override
+    public Question.QuestionType type() { return Question.QuestionType.RADIO; }
+
+    @Override
+    public QuestionTypeHandler create() { return new Handler(); }
+
+    static final class Handler implements QuestionTypeHandler {
+        @Override
+        public AnswerView render(Question question) {
+            JPanel center = QuestionTypes.column();
+            CompiledQuestion compiled = question.getCompiled();
+            ButtonGroup radioGroup = new ButtonGroup();
+            List<AbstractButton> optionButtons = new ArrayList<>();
+            for (String opt : question.getOptions()) {
+                JRadioButton rb = new JRadioButton(opt);
+                radioGroup.add(rb);
+                optionButtons.add(rb);
+                center.add(rb);
+            }
+            return new AnswerView() {
+                @Override
+                public JComponent getComponent() { return center; }
+
+                @Override
+                public String getUserAnswer() {
+                    for (int i = 0; i < optionButtons.size(); i++) {
+                        if (optionButtons.get(i).isSelected()) {
+                            return CompiledQuestion.encodeMask(compiled.getOptionMask(i));
+                        }
+                    }
+                    return "";
+                }
+            };
+        }
+
+        @Override
+        public boolean grade(Question question, String answer) {
+            long selected = CompiledQuestion.decodeMask(answer);
+            return Long.bitCount(selected) == 1 && (selected & question.getCompiled().getAnswerMask()) != 0;
+        }
+
+        @Override
+        public String describe(Question question, String answer) {
+            return QuestionTypes.describeChoices(question, answer);
+        }
+    }
+}
@@ -0,0 +1,476 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of the quiz in progress, used to resume after a crash.
+ * Every event is handed to the OS immediately, so a crashed JVM loses nothing;
+ * the file is forced to disk at most once per {@link #FORCE_INTERVAL_MS}, and
+ * writes that were not forced yet are forced by a background thread once the
+ * interval is over, so a power loss costs at most about a second of answers.
+ *
+ * <p>Each record is a type byte, the session clock in milliseconds and a payload.
+ * A torn or zero-filled tail simply ends the replay. A verdict only counts once
+ * the move to the next question was journaled too, so a crash between grading
+ * and moving on leaves the question unanswered instead of counting it twice.</p>
+ *
+ * <p>There is one journal per home directory. The process that writes or resumes
+ * it holds a lock on a sibling {@code .lock} file until the quiz is cleared, so a
+ * second instance neither truncates it nor offers to resume it; that instance's
+ * quizzes simply go unjournaled while the lock is held elsewhere. A crashed
+ * process releases the lock, which makes its journal resumable.</p>
+ *
+ * @author GasTheJuice
+ */
+public class SessionJournal {
+    private static final String JOURNAL_FILE_NAME = System.getProperty("quizapp.journal.file",
+        System.getProperty("user.home") + File.separator + "quizapp_session.journal");
+
+    /** Minimum time between two fsyncs of the journal */
+    public static final long FORCE_INTERVAL_MS = 1000;
+
+    private static final int MAGIC = 0x514A5233; // "QJR3", choice answers stored as option masks
+    private static final int MAX_STRING_BYTES = 1 << 20;
+    private static final byte START = 1, RECORD = 2, STORE = 3, NEXT = 4, HINT = 5;
+
+    private static final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "journal-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Path path;
+    private FileChannel channel;
+    /** Open while this process owns the journal, the lock is released when it is closed */
+    private FileChannel owner;
+    private long lastForce;
+    private boolean dirty;
+    private boolean forceScheduled;
+
+    /** State rebuilt from a journal, ready for {@link QuizManager#restore(Replay)} */
+    public static final class Replay {
+        String theme;
+        int timeLimitSeconds;
+        List<Question> themeQuestions;
+        List<QuestionTemplate> templates;
+        int[] bankIndexes;
+        long[] seeds;
+        int currentIndex;
+        int correctCount;
+        int wrongCount;
+        int hintsUsed;
+        long elapsedMillis;
+        String[] answers;
+        long[] responseNanos;
+        boolean[] verdicts;
+        long validBytes;
+
+        /** @return theme of the interrupted quiz */
+        public String getTheme() { return theme; }
+
+        /** @return seconds left on the clock when the journal was last written */
+        public int getRemainingSeconds() {
+            return (int) Math.max(0, timeLimitSeconds - elapsedMillis / 1000);
+        }
+
+        /** @return zero-based index of the question the user was on */
+        public int getCurrentIndex() { return currentIndex; }
+
+        /** @return number of questions in the interrupted quiz */
+        public int getQuestionCount() { return bankIndexes.length; }
+    }
+
+    /** Creates a journal at the default location in the user's home directory. */
+    public SessionJournal() {
+        this(Paths.get(JOURNAL_FILE_NAME));
+    }
+
+    /**
+     * Creates a journal at the given location.
+     *
+     * @param path journal file
+     */
+    public SessionJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Checks for an unfinished session left behind by a process that is gone,
+     * and takes ownership of its journal if there is one.
+     *
+     * @return true if an unfinished session was left behind
+     */
+    public synchronized boolean hasPending() {
+        return channel == null && Files.exists(path) && claim();
+    }
+
+    /**
+     * Starts a new journal, replacing any previous one.
+     *
+     * @param theme quiz theme
+     * @param timeLimitSeconds time limit of the quiz
+     * @param questions questions of the quiz; the stable ids of bank questions are
+     *                  journaled so the quiz can be found again even if the theme was
+     *                  re-imported meanwhile, and the seeds of generated ones so they
+     *                  can be generated again
+     * @param bankIndexes positions of the quiz questions among the theme's questions,
+     *                    or {@code -(t + 1)} for a question generated from template t of the theme
+     */
+    public synchronized void start(String theme, int timeLimitSeconds, List<Question> questions, int[] bankIndexes) {
+        close();
+        if (!claim()) {
+            System.err.println("Another instance owns " + path + ", this quiz is not journaled");
+            return;
+        }
+        byte[] themeBytes = theme.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate(32 + themeBytes.length + bankIndexes.length * 12);
+        buf.putInt(MAGIC).put(START).putLong(0);
+        buf.putInt(themeBytes.length).put(themeBytes);
+        buf.putInt(timeLimitSeconds).putInt(bankIndexes.length);
+        for (int i = 0; i < bankIndexes.length; i++) {
+            Question q = questions.get(i);
+            buf.putInt(bankIndexes[i]).putLong(q instanceof QuestionTemplate.Instance
+                ? ((QuestionTemplate.Instance) q).getSeed() : Long.parseUnsignedLong(q.getId(), 16));
+        }
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                       StandardOpenOption.TRUNCATE_EXISTING);
+            write(buf, true);
+        } catch (IOException e) {
+            e.printStackTrace();
+            channel = null;
+        }
+    }
+
+    /**
+     * Continues the journal a replay was read from, so a resumed quiz keeps being
+     * journaled. A torn tail past the last valid record is cut off first.
+     *
+     * @param replay state read by {@link #replay(ThemeCatalog)} from this journal
+     */
+    public synchronized void resume(Replay replay) {
+        close();
+        if (!claim()) {
+            System.err.println("Another instance owns " + path + ", the resumed quiz is not journaled");
+            return;
+        }
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.WRITE);
+            channel.truncate(replay.validBytes);
+            channel.position(replay.validBytes);
+            channel.force(false);
+            lastForce = System.currentTimeMillis();
+        } catch (IOException e) {
+            e.printStackTrace();
+            close();
+        }
+    }
+
+    /**
+     * Journals a graded answer.
+     *
+     * @param elapsedMillis session clock
+     * @param correct whether the answer was correct
+     */
+    public void recordAnswer(long elapsedMillis, boolean correct) {
+        append(header(RECORD, elapsedMillis, 1).put((byte) (correct ? 1 : 0)));
+    }
+
+    /**
+     * Journals a stored raw answer and its response time.
+     *
+     * @param elapsedMillis session clock
+     * @param index quiz position of the question
+     * @param answer raw answer
+     * @param responseNanos accumulated response time of the question
+     */
+    public void storeAnswer(long elapsedMillis, int index, String answer, long responseNanos) {
+        byte[] bytes = (answer == null ? "" : answer).getBytes(StandardCharsets.UTF_8);
+        append(header(STORE, elapsedMillis, 16 + bytes.length)
+            .putInt(index).putLong(responseNanos).putInt(bytes.length).put(bytes));
+    }
+
+    /**
+     * Journals a move to another question.
+     *
+     * @param elapsedMillis session clock
+     * @param index new quiz position
+     */
+    public void nextQuestion(long elapsedMillis, int index) {
+        append(header(NEXT, elapsedMillis, 4).putInt(index));
+    }
+
+    /**
+     * Journals a hint being shown.
+     *
+     * @param elapsedMillis session clock
+     */
+    public void hintUsed(long elapsedMillis) {
+        append(header(HINT, elapsedMillis, 0));
+    }
+
+    /**
+     * Closes and deletes the journal once the quiz has been finished and persisted,
+     * and gives up ownership of it. A journal owned by another instance is left alone.
+     */
+    public synchronized void clear() {
+        close();
+        if (!claim()) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        release();
+    }
+
+    /**
+     * Takes ownership of the journal unless another process holds it.
+     *
+     * @return true if this process owns the journal
+     */
+    private boolean claim() {
+        if (owner != null) {
+            return true;
+        }
+        FileChannel lockChannel = null;
+        try {
+            lockChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"),
+                                           StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (lockChannel.tryLock() != null) {
+                owner = lockChannel;
+                return true;
+            }
+        } catch (OverlappingFileLockException e) {
+            // held by another journal on the same file in this JVM
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (lockChannel != null) {
+            try {
+                lockChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return false;
+    }
+
+    private void release() {
+        if (owner != null) {
+            try {
+                owner.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            owner = null;
+        }
+    }
+
+    /**
+     * Replays the journal left behind by an interrupted session.
+     *
+     * @param catalog current theme catalog
+     * @return rebuilt state, or null if there is no usable journal for this catalog
+     * @throws java.io.UncheckedIOException if the questions of the journaled theme cannot
+     *         be loaded right now; the journal is still usable later
+     */
+    public Replay replay(ThemeCatalog catalog) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            byte[] data = Files.readAllBytes(path);
+            ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+            DataInputStream in = new DataInputStream(bytes);
+            if (in.readInt() != MAGIC || in.readByte() != START) {
+                return null;
+            }
+            in.readLong();
+            Replay r = new Replay();
+            r.theme = readString(in);
+            r.timeLimitSeconds = in.readInt();
+            int count = in.readInt();
+            if (count < 0 || count > MAX_STRING_BYTES) {
+                return null;
+            }
+            r.bankIndexes = new int[count];
+            r.seeds = new long[count];
+            for (int i = 0; i < count; i++) {
+                r.bankIndexes[i] = in.readInt();
+                r.seeds[i] = in.readLong();
+            }
+            List<Question> bank = catalog.getQuestions(r.theme);
+            if (bank == null) {
+                return null;
+            }
+            r.themeQuestions = bank;
+            r.templates = QuestionBank.getTemplates(r.theme);
+            Map<String, Integer> positions = null;
+            for (int i = 0; i < count; i++) {
+                int idx = r.bankIndexes[i];
+                if (idx < 0) {
+                    if (-idx - 1 >= r.templates.size()) {
+                        return null;
+                    }
+                    continue;
+                }
+                String id = String.format("%016x", r.seeds[i]);
+                r.seeds[i] = 0;
+                if (idx < bank.size() && bank.get(idx).getId().equals(id)) {
+                    continue;
+                }
+                // The theme changed since the journal was written; look the question up by id.
+                if (positions == null) {
+                    positions = new HashMap<>();
+                    for (int j = 0; j < bank.size(); j++) {
+                        positions.putIfAbsent(bank.get(j).getId(), j);
+                    }
+                }
+                Integer moved = positions.get(id);
+                if (moved == null) {
+                    return null;
+                }
+                r.bankIndexes[i] = moved;
+            }
+            r.answers = new String[count];
+            r.responseNanos = new long[count];
+            r.verdicts = new boolean[count];
+            r.validBytes = data.length - bytes.available();
+
+            // Verdict of the current question, counted once the move to the next one follows.
+            Boolean pending = null;
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    long elapsed = in.readLong();
+                    switch (type) {
+                        case RECORD -> pending = in.readByte() != 0;
+                        case STORE -> {
+                            int index = in.readInt();
+                            long nanos = in.readLong();
+                            String answer = readString(in);
+                            r.answers[index] = answer;
+                            r.responseNanos[index] = nanos;
+                        }
+                        case NEXT -> {
+                            int next = in.readInt();
+                            if (next < 0 || next >= count) {
+                                throw new EOFException("Corrupt question index");
+                            }
+                            if (pending != null) {
+                                r.verdicts[r.currentIndex] = pending;
+                                if (pending) {
+                                    r.correctCount++;
+                                } else {
+                                    r.wrongCount++;
+                                }
+                                pending = null;
+                            }
+                            r.currentIndex = next;
+                        }
+                        case HINT -> r.hintsUsed++;
+                        default -> throw new EOFException("End of valid records");
+                    }
+                    r.elapsedMillis = elapsed;
+                    r.validBytes = data.length - bytes.available();
+                }
+            } catch (EOFException | IndexOutOfBoundsException endOfJournal) {
+                // torn or zero-filled tail, everything before it is valid
+            }
+            return r;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0 || len > MAX_STRING_BYTES) {
+            throw new EOFException("Corrupt string length");
+        }
+        byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer header(byte type, long elapsedMillis, int payload) {
+        return ByteBuffer.allocate(1 + Long.BYTES + payload).put(type).putLong(elapsedMillis);
+    }
+
+    private synchronized void append(ByteBuffer buf) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            write(buf, false);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void write(ByteBuffer buf, boolean force) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        long now = System.currentTimeMillis();
+        if (force || now - lastForce >= FORCE_INTERVAL_MS) {
+            channel.force(false);
+            lastForce = now;
+            dirty = false;
+        } else {
+            dirty = true;
+            if (!forceScheduled) {
+                forceScheduled = true;
+                syncer.schedule(this::forceTrailing, lastForce + FORCE_INTERVAL_MS - now, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /** Forces the writes that arrived after the last force, if the journal is still open. */
+    private synchronized void forceTrailing() {
+        forceScheduled = false;
+        if (channel == null || !dirty) {
+            return;
+        }
+        try {
+            channel.force(false);
+            lastForce = System.currentTimeMillis();
+            dirty = false;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+        dirty = false;
+    }
+}
@@ -0,0 +1,70 @@
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+
+/**
+ * Integer question answered with a slider. Options hold min, max and an optional initial value,
+ * parsed once into the question's {@link CompiledQuestion}.
+ *
+ * @author GasTheJuice
+ */
+public class SliderQuestionType implements QuestionTypeProvider {
+
+    @Override
+    public Question.QuestionType type() { return Question.QuestionType.SLIDER; }
+
+    @Override
+    public QuestionTypeHandler create() { return new Handler(); }
+
+    static final class Handler implements QuestionTypeHandler {
+        @Override
+        public AnswerView render(Question question) {
+            JPanel center = QuestionTypes.column();
+            CompiledQuestion compiled = question.getCompiled();
+            JSlider slider = null;
+            int min = compiled.getSliderMin();
+            int max = compiled.getSliderMax();
+            // Only the range matters here; other problems of the question do not stop it from being answered.
+            if (min >= max) {
+                center.add(new JLabel("Invalid slider range."));
+            } else {
+                int initial = Math.max(min, Math.min(max, compiled.getSliderInitial()));
+                slider = new JSlider(min, max, initial);
+                slider.setMajorTickSpacing(Math.max(1, (max - min) / 5));
+                slider.setPaintTicks(true);
+                slider.setPaintLabels(true);
+                slider.setMaximumSize(new Dimension(Integer.MAX_VALUE, 60));
+                JLabel valueLabel = new JLabel(String.valueOf(initial));
+                JSlider s = slider;
+                slider.addChangeListener(e -> valueLabel.setText(String.valueOf(s.getValue())));
+                JPanel sliderPanel = new JPanel();
+                sliderPanel.setLayout(new BorderLayout(5, 5));
+                sliderPanel.add(slider, BorderLayout.CENTER);
+                sliderPanel.add(valueLabel, BorderLayout.EAST);
+                center.add(sliderPanel);
+            }
+            JSlider input = slider;
+            return new AnswerView() {
+                @Override
+                public JComponent getComponent() { return center; }
+
+                @Override
+                public String getUserAnswer() {
+                    return input != null ? String.valueOf(input.getValue()) : "";
+                }
+            };
+        }
+
+        @Override
+        public boolean grade(Question question, String answer) {
+            try {
+                return question.getCompiled().isSliderAnswer(Integer.parseInt(Question.normalize(answer)));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-theme {@link QuantileDigest}s of score percentage and elapsed seconds,
+ * persisted in one small file shared by all processes.
+ *
+ * <p>New results are added to an in-memory delta that is merged into the file
+ * at most once per {@link #FLUSH_INTERVAL_MS}, by a trailing flush when no further
+ * result arrives, and at shutdown, under a lock on a sibling {@code .lock} file, so concurrent processes never lose each other's
+ * results. A crash loses at most about a second of results from the digests
+ * (they remain in the history). When the file does not exist yet it is built
+ * once from the full history.</p>
+ *
+ * @author GasTheJuice
+ */
+public class StatsDigests {
+    /** Minimum time between two merges of the delta into the file */
+    public static final long FLUSH_INTERVAL_MS = 1000;
+
+    private static final int MAGIC = 0x51544447; // "QTDG"
+
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "stats-digest-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Path file;
+    private final Supplier<StatsSegments.History> history;
+    private final Map<String, ThemeDigest> pending = new TreeMap<>();
+    private Map<String, ThemeDigest> cached;
+    private FileTime cachedModified;
+    private long lastFlush;
+    private boolean flushScheduled;
+
+    /** Score and time digests of one theme */
+    public static final class ThemeDigest {
+        private final QuantileDigest percentage;
+        private final QuantileDigest seconds;
+
+        ThemeDigest() {
+            this(new QuantileDigest(), new QuantileDigest());
+        }
+
+        private ThemeDigest(QuantileDigest percentage, QuantileDigest seconds) {
+            this.percentage = percentage;
+            this.seconds = seconds;
+        }
+
+        void add(double pct, long secs) {
+            percentage.add(pct);
+            seconds.add(secs);
+        }
+
+        void merge(ThemeDigest o) {
+            percentage.merge(o.percentage);
+            seconds.merge(o.seconds);
+        }
+
+        /** @return digest of score percentages */
+        public QuantileDigest getPercentage() { return percentage; }
+
+        /** @return digest of elapsed seconds */
+        public QuantileDigest getSeconds() { return seconds; }
+    }
+
+    /**
+     * Creates a digest store.
+     *
+     * @param file digest file
+     * @param history full history, read once if the digest file does not exist
+     */
+    public StatsDigests(Path file, Supplier<StatsSegments.History> history) {
+        this.file = file;
+        this.history = history;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "stats-digest-flush"));
+    }
+
+    /**
+     * Builds the digest file from the history if it does not exist yet.
+     * Must be called before results that are already in the history are recorded.
+     */
+    public synchronized void ensureCreated() {
+        if (Files.exists(file)) {
+            return;
+        }
+        withFileLock(() -> {
+            if (Files.exists(file)) {
+                return;
+            }
+            Map<String, ThemeDigest> digests = new TreeMap<>();
+            try (StatsSegments.History rows = history.get()) {
+                while (rows.hasNext()) {
+                    String[] row = rows.next();
+                    if (row.length < 7) {
+                        continue;
+                    }
+                    try {
+                        double pct = Double.parseDouble(row[4].trim());
+                        long secs = Long.parseLong(row[6].trim());
+                        digests.computeIfAbsent(row[1], t -> new ThemeDigest()).add(pct, secs);
+                    } catch (NumberFormatException ignored) {}
+                }
+            }
+            write(digests);
+        });
+    }
+
+    /**
+     * Adds a result, merging it into the digest file if the last merge
+     * was at least {@link #FLUSH_INTERVAL_MS} ago, or else scheduling a merge for then.
+     *
+     * @param theme quiz theme
+     * @param percentage score percentage
+     * @param seconds elapsed seconds
+     */
+    public synchronized void record(String theme, double percentage, long seconds) {
+        pending.computeIfAbsent(theme, t -> new ThemeDigest()).add(percentage, seconds);
+        long now = System.currentTimeMillis();
+        if (now - lastFlush >= FLUSH_INTERVAL_MS) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            flusher.schedule(this::flushTrailing, lastFlush + FLUSH_INTERVAL_MS - now, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Merges the results that arrived after the last flush, if no later record did it. */
+    private synchronized void flushTrailing() {
+        flushScheduled = false;
+        flush();
+    }
+
+    /** Merges the results recorded since the last flush into the digest file. */
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        lastFlush = System.currentTimeMillis();
+        withFileLock(() -> {
+            Map<String, ThemeDigest> digests = read();
+            pending.forEach((t, delta) -> digests.computeIfAbsent(t, k -> new ThemeDigest()).merge(delta));
+            write(digests);
+            pending.clear();
+        });
+    }
+
+    /**
+     * Returns the digests of a theme as currently persisted, plus the results
+     * of this process that are not flushed yet. The file is only re-read when it changes.
+     *
+     * @param theme quiz theme
+     * @return copy of the theme's digests, empty if it has no results
+     */
+    public synchronized ThemeDigest get(String theme) {
+        try {
+            FileTime modified = Files.exists(file) ? Files.getLastModifiedTime(file) : null;
+            if (cached == null || modified == null || !modified.equals(cachedModified)) {
+                cached = read();
+                cachedModified = modified;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            cached = new TreeMap<>();
+        }
+        ThemeDigest copy = new ThemeDigest();
+        ThemeDigest saved = cached.get(theme);
+        if (saved != null) {
+            copy.merge(saved);
+        }
+        ThemeDigest unsaved = pending.get(theme);
+        if (unsaved != null) {
+            copy.merge(unsaved);
+        }
+        return copy;
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private void withFileLock(IoAction action) {
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.lock(); // released when the channel is closed
+            action.run();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Map<String, ThemeDigest> read() throws IOException {
+        Map<String, ThemeDigest> digests = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return digests;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a stats digest file: " + file);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String theme = in.readUTF();
+                digests.put(theme, new ThemeDigest(QuantileDigest.read(in), QuantileDigest.read(in)));
+            }
+        }
+        return digests;
+    }
+
+    private void write(Map<String, ThemeDigest> digests) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(digests.size());
+            for (Map.Entry<String, ThemeDigest> e : digests.entrySet()) {
+                out.writeUTF(e.getKey());
+                e.getValue().percentage.write(out);
+                e.getValue().seconds.write(out);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
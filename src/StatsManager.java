@@ -1,28 +1,70 @@
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Handles persistence of quiz results to a CSV file in the user's home directory.
+ * Handles persistence of quiz results to CSV files in the user's home directory.
+ * Each process appends to its own segment in {@code quizapp_stats.d}; the older
+ * single {@code quizapp_stats.csv} is still read and merged into the history.
+ * The location can be overridden with the {@code quizapp.stats.file} system property.
  * 
  * @author GasTheJuice
  */
 public class StatsManager {
-    private static final String STATS_FILE_NAME = System.getProperty("user.home") + File.separator + "quizapp_stats.csv";
+    private static final String STATS_FILE_NAME = System.getProperty("quizapp.stats.file",
+        System.getProperty("user.home") + File.separator + "quizapp_stats.csv");
     private static final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final StatsSegments segments = new StatsSegments(
+        Paths.get(STATS_FILE_NAME.replaceFirst("\\.csv$", "") + ".d"), Paths.get(STATS_FILE_NAME));
+    private static final long COMPACT_INTERVAL_MINUTES = 60;
+    private static final StatsDigests digests = new StatsDigests(
+        Paths.get(STATS_FILE_NAME.replaceFirst("\\.csv$", "") + ".digest"), segments::openAll);
+
+    /** Player recorded with each result unless the caller names one */
+    public static final String DEFAULT_PLAYER = System.getProperty("quizapp.player", System.getProperty("user.name"));
+
+    // Appends hold the read lock, the one-time leaderboard load holds the write lock,
+    // so no result is both read from disk and added live, or neither.
+    private static final ReadWriteLock leaderboardLock = new ReentrantReadWriteLock();
+    private static volatile Map<String, Leaderboard> leaderboards;
+
+    private static ScheduledExecutorService compactor;
+
+    /**
+     * Starts compacting sealed segments in the background, a minute from now
+     * and then every {@value #COMPACT_INTERVAL_MINUTES} minutes. Only the app calls this;
+     * reports and simulations read the shared store without rewriting it.
+     */
+    public static synchronized void startCompactor() {
+        if (compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stats-compactor");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(segments::compact, 1, COMPACT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
 
     /**
-     * Appends a quiz result to the stats file.
+     * Appends a quiz result to this process's stats segment,
+     * the theme's leaderboard and its percentile digests.
      * 
+     * @param player name of the player
      * @param theme quiz theme
      * @param correct number correct
      * @param wrong number wrong
@@ -30,25 +72,107 @@ public class StatsManager {
      * @param hintsUsed number of hints used
      * @param timeElapsedSeconds total time taken
      */
-    public static void append(String theme, int correct, int wrong, double percentage, int hintsUsed, long timeElapsedSeconds) {
+    public static void append(String player, String theme, int correct, int wrong, double percentage, int hintsUsed, long timeElapsedSeconds) {
+        String timestamp = LocalDateTime.now().format(formatter);
         String line = String.join(",",
-            LocalDateTime.now().format(formatter),
+            timestamp,
             escapeCsv(theme),
             String.valueOf(correct),
             String.valueOf(wrong),
             String.format(Locale.US, "%.2f", percentage),
             String.valueOf(hintsUsed),
-            String.valueOf(timeElapsedSeconds)
+            String.valueOf(timeElapsedSeconds),
+            escapeCsv(player)
         );
 
+        digests.ensureCreated();
+        QuizEvents.StatsAppend event = new QuizEvents.StatsAppend();
+        event.begin();
+        long start = System.nanoTime();
+        leaderboardLock.readLock().lock();
         try {
-            Files.write(Paths.get(STATS_FILE_NAME),
-                (line + System.lineSeparator()).getBytes(),
-                StandardOpenOption.CREATE,
-                StandardOpenOption.APPEND);
+            long bytes = segments.append(line);
+            QuizMetrics.get().statsAppended(System.nanoTime() - start, bytes);
+            event.end();
+            if (event.shouldCommit()) {
+                event.bytes = bytes;
+                event.commit();
+            }
+            Map<String, Leaderboard> boards = leaderboards;
+            if (boards != null) {
+                boards.computeIfAbsent(theme, t -> new Leaderboard())
+                      .add(new Leaderboard.Entry(player, percentage, timeElapsedSeconds, timestamp));
+            }
         } catch (IOException e) {
             e.printStackTrace();
+            return;
+        } finally {
+            leaderboardLock.readLock().unlock();
+        }
+        digests.record(theme, percentage, timeElapsedSeconds);
+    }
+
+    /**
+     * Merges results not yet in the digest file into it now, instead of at
+     * the next flush or at shutdown.
+     */
+    public static void flushDigests() {
+        digests.flush();
+    }
+
+    /**
+     * Returns the percentile digests of a theme's score percentages and
+     * elapsed seconds, covering every result of every process.
+     * 
+     * @param theme quiz theme
+     * @return copy of the theme's digests, empty if it has no results
+     */
+    public static StatsDigests.ThemeDigest getDigest(String theme) {
+        digests.ensureCreated();
+        return digests.get(theme);
+    }
+
+    /**
+     * Returns the leaderboard of a theme. The first call builds all boards
+     * from the archived and live history; later results are added as they are appended.
+     * Results written by other processes after that are not picked up.
+     * 
+     * @param theme quiz theme
+     * @return leaderboard of the theme, empty if it has no results
+     */
+    public static Leaderboard getLeaderboard(String theme) {
+        Map<String, Leaderboard> boards = leaderboards;
+        if (boards == null) {
+            leaderboardLock.writeLock().lock();
+            try {
+                boards = leaderboards;
+                if (boards == null) {
+                    boards = loadLeaderboards();
+                    leaderboards = boards;
+                }
+            } finally {
+                leaderboardLock.writeLock().unlock();
+            }
+        }
+        return boards.computeIfAbsent(theme, t -> new Leaderboard());
+    }
+
+    private static Map<String, Leaderboard> loadLeaderboards() {
+        Map<String, Leaderboard> boards = new ConcurrentHashMap<>();
+        try (StatsSegments.History history = segments.openAll()) {
+            while (history.hasNext()) {
+                String[] row = history.next();
+                if (row.length < 7) {
+                    continue;
+                }
+                try {
+                    String player = row.length > 7 && !row[7].isEmpty() ? row[7] : "anonymous";
+                    boards.computeIfAbsent(row[1], t -> new Leaderboard()).add(new Leaderboard.Entry(
+                        player, Double.parseDouble(row[4].trim()), Long.parseLong(row[6].trim()), row[0]));
+                } catch (NumberFormatException ignored) {}
+            }
         }
+        return boards;
     }
 
     /**
@@ -67,25 +191,47 @@ public class StatsManager {
     }
 
     /**
-     * Reads all recorded quiz attempts.
+     * Returns per-theme totals of archived (compacted) attempts.
+     * Only the small summary files are read, archives stay compressed.
+     * 
+     * @return summaries keyed by theme
+     */
+    public static Map<String, StatsSegments.Summary> readArchivedSummaries() {
+        return segments.readArchivedSummaries();
+    }
+
+    /**
+     * Opens every recorded attempt, archived ones included, ordered by time.
+     * Rows are read lazily, so this suits reports over very large histories.
+     * 
+     * @return row iterator; must be closed
+     */
+    public static StatsSegments.History openHistory() {
+        return segments.openAll();
+    }
+
+    /**
+     * Reads recent quiz attempts from every live segment, ordered by time.
+     * Archived attempts are only available through {@link #readArchivedSummaries()}.
      * 
      * @return list of string arrays, each representing a row
      */
     public static List<String[]> readHistory() {
+        QuizEvents.HistoryRead event = new QuizEvents.HistoryRead();
+        event.begin();
+        long start = System.nanoTime();
         List<String[]> rows = new ArrayList<>();
-        Path path = Paths.get(STATS_FILE_NAME);
-        if (!Files.exists(path)) {
-            return rows;
+        long bytes;
+        try (StatsSegments.History history = segments.open()) {
+            history.forEachRemaining(rows::add);
+            bytes = history.getBytesRead();
         }
-
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] cols = line.split(",");
-                rows.add(cols);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        QuizMetrics.get().historyRead(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows.size();
+            event.bytes = bytes;
+            event.commit();
         }
         return rows;
     }
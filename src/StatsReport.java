@@ -0,0 +1,363 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless report over the quiz history, for nightly jobs on large,
+ * multi-machine histories.
+ *
+ * <p>Rows are streamed from a {@link StatsSegments.History} and folded into one
+ * aggregate per group as they pass, so memory grows with the number of groups,
+ * never with the number of rows. Score percentiles come from a
+ * {@link QuantileDigest} per group, whose arrays grow with its rows: a group
+ * costs a few hundred bytes for a handful of rows and at most about 10 KB, so
+ * a million groups of a few rows each fit in a few hundred MB. The history is
+ * ordered by time, so the scan stops at the first row past {@code --until}.</p>
+ *
+ * <p>Without file arguments the configured stats history is read, archives
+ * included ({@code --stats=} points at another one). File arguments, such as
+ * segments or {@code .csv.gz} archives copied from other machines, or
+ * directories holding them, are merged by time instead.</p>
+ *
+ * <pre>
+ * java StatsReport [--stats=FILE] [--group=theme,week] [--theme=T] [--player=P]
+ *                  [--since=2024-01-01] [--until=2024-12-31] [--min-score=50]
+ *                  [--sort=attempts|score|p50|time|key] [--top=N]
+ *                  [--format=table|csv|json] [history files...]
+ * </pre>
+ *
+ * @author GasTheJuice
+ */
+public class StatsReport {
+    /** Ways to group rows; several can be combined */
+    enum GroupBy { THEME, PLAYER, DAY, WEEK }
+
+    private final List<GroupBy> groupBy = new ArrayList<>(List.of(GroupBy.THEME));
+    private String theme;
+    private String player;
+    private LocalDate since;
+    private LocalDate until;
+    private double minScore = Double.NEGATIVE_INFINITY;
+    private String sort = "key";
+    private int top = Integer.MAX_VALUE;
+    private String format = "table";
+
+    private long rowsRead;
+    private long rowsMatched;
+    private long rowsMalformed;
+
+    /** Running totals of one group */
+    static final class Group {
+        final String[] key;
+        long attempts;
+        long correct;
+        long wrong;
+        long hints;
+        long seconds;
+        double percentSum;
+        final QuantileDigest scores = new QuantileDigest();
+
+        Group(String[] key) {
+            this.key = key;
+        }
+
+        void add(int c, int w, double pct, int h, long secs) {
+            attempts++;
+            correct += c;
+            wrong += w;
+            hints += h;
+            seconds += secs;
+            percentSum += pct;
+            scores.add(pct);
+        }
+
+        double averageScore() { return attempts == 0 ? 0 : percentSum / attempts; }
+
+        double averageSeconds() { return attempts == 0 ? 0 : (double) seconds / attempts; }
+    }
+
+    /**
+     * Parses the options, streams the history and prints the report.
+     *
+     * @param args options and optional history files, see class description
+     */
+    public static void main(String[] args) {
+        StatsReport report = new StatsReport();
+        List<Path> files = new ArrayList<>();
+        try {
+            for (String arg : args) {
+                if (!arg.startsWith("--")) {
+                    files.addAll(historyFiles(Paths.get(arg)));
+                    continue;
+                }
+                String[] kv = arg.substring(2).split("=", 2);
+                String value = kv.length > 1 ? kv[1] : "";
+                switch (kv[0]) {
+                    case "stats" -> System.setProperty("quizapp.stats.file", value);
+                    case "group" -> {
+                        report.groupBy.clear();
+                        for (String g : value.split(",")) {
+                            try {
+                                report.groupBy.add(GroupBy.valueOf(g.trim().toUpperCase(Locale.ROOT)));
+                            } catch (IllegalArgumentException e) {
+                                throw new IllegalArgumentException("Unknown group: " + g);
+                            }
+                        }
+                    }
+                    case "theme" -> report.theme = value;
+                    case "player" -> report.player = value;
+                    case "since" -> report.since = LocalDate.parse(value);
+                    case "until" -> report.until = LocalDate.parse(value);
+                    case "min-score" -> report.minScore = Double.parseDouble(value);
+                    case "sort" -> report.sort = value;
+                    case "top" -> report.top = Integer.parseInt(value);
+                    case "format" -> report.format = value;
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (!List.of("attempts", "score", "p50", "time", "key").contains(report.sort)) {
+                throw new IllegalArgumentException("Unknown sort: " + report.sort);
+            }
+            if (!List.of("table", "csv", "json").contains(report.format)) {
+                throw new IllegalArgumentException("Unknown format: " + report.format);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+
+        // StatsManager reads quizapp.stats.file when it is loaded, so only touch it now.
+        Map<String, Group> groups;
+        try (StatsSegments.History history = files.isEmpty()
+                ? StatsManager.openHistory() : StatsSegments.merge(files)) {
+            groups = report.aggregate(history);
+        }
+        report.print(report.select(groups));
+        System.err.printf(Locale.US, "%d rows read, %d matched, %d malformed, %d groups%n",
+                          report.rowsRead, report.rowsMatched, report.rowsMalformed, groups.size());
+    }
+
+    /**
+     * Folds the matching rows of a history into per-group totals.
+     *
+     * @param history time-ordered rows; consumed but not closed
+     * @return groups keyed by their joined key, in key order
+     */
+    Map<String, Group> aggregate(StatsSegments.History history) {
+        Map<String, Group> groups = new TreeMap<>();
+        String[] key = new String[groupBy.size()];
+        // Rows come in time order, so the date is only parsed when the day changes.
+        String lastDate = null;
+        LocalDate day = null;
+        String week = null;
+        while (history.hasNext()) {
+            String[] row = history.next();
+            rowsRead++;
+            if (row.length < 7 || row[0].length() < 10) {
+                rowsMalformed++;
+                continue;
+            }
+            int correct, wrong, hints;
+            double pct;
+            long secs;
+            try {
+                if (!row[0].regionMatches(0, lastDate == null ? "" : lastDate, 0, 10)) {
+                    day = LocalDate.parse(row[0].substring(0, 10));
+                    week = String.format("%d-W%02d", day.get(IsoFields.WEEK_BASED_YEAR),
+                                         day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+                    lastDate = row[0];
+                }
+                correct = Integer.parseInt(row[2].trim());
+                wrong = Integer.parseInt(row[3].trim());
+                pct = Double.parseDouble(row[4].trim());
+                hints = Integer.parseInt(row[5].trim());
+                secs = Long.parseLong(row[6].trim());
+            } catch (NumberFormatException | DateTimeParseException e) {
+                rowsMalformed++;
+                continue;
+            }
+            if (until != null && day.isAfter(until)) {
+                break;
+            }
+            String rowPlayer = row.length > 7 && !row[7].isEmpty() ? row[7] : "anonymous";
+            if ((since != null && day.isBefore(since)) || (theme != null && !theme.equals(row[1]))
+                    || (player != null && !player.equals(rowPlayer)) || pct < minScore) {
+                continue;
+            }
+            rowsMatched++;
+            for (int i = 0; i < key.length; i++) {
+                key[i] = switch (groupBy.get(i)) {
+                    case THEME -> row[1];
+                    case PLAYER -> rowPlayer;
+                    case DAY -> lastDate.substring(0, 10);
+                    case WEEK -> week;
+                };
+            }
+            groups.computeIfAbsent(String.join("\u001f", key), k -> new Group(key.clone()))
+                  .add(correct, wrong, pct, hints, secs);
+        }
+        return groups;
+    }
+
+    /** Orders the groups by the sort column and keeps the top ones. */
+    List<Group> select(Map<String, Group> groups) {
+        Comparator<Group> order = switch (sort) {
+            case "attempts" -> Comparator.comparingLong((Group g) -> g.attempts).reversed();
+            case "score" -> Comparator.comparingDouble(Group::averageScore).reversed();
+            case "p50" -> Comparator.comparingDouble((Group g) -> g.scores.quantile(0.5)).reversed();
+            case "time" -> Comparator.comparingDouble(Group::averageSeconds);
+            default -> (a, b) -> 0;
+        };
+        // Ties keep key order, so the same history always gives the same report.
+        order = order.thenComparing(g -> String.join("\u001f", g.key));
+        if (sort.equals("key") && top >= groups.size()) {
+            return new ArrayList<>(groups.values());
+        }
+        // Keeps only the best `top` groups: the worst of them sits at the head.
+        PriorityQueue<Group> best = new PriorityQueue<>(order.reversed());
+        for (Group g : groups.values()) {
+            best.add(g);
+            if (best.size() > top) {
+                best.poll();
+            }
+        }
+        List<Group> selected = new ArrayList<>(best);
+        selected.sort(order);
+        return selected;
+    }
+
+    private void print(List<Group> groups) {
+        List<String> names = new ArrayList<>();
+        for (GroupBy g : groupBy) {
+            names.add(g.name().toLowerCase(Locale.ROOT));
+        }
+        String[] columns = { "attempts", "avg_score", "p50_score", "p90_score", "avg_seconds", "hints", "correct", "wrong" };
+        List<String[]> cells = new ArrayList<>();
+        for (Group g : groups) {
+            cells.add(new String[] {
+                String.valueOf(g.attempts),
+                String.format(Locale.US, "%.2f", g.averageScore()),
+                String.format(Locale.US, "%.1f", g.scores.quantile(0.5)),
+                String.format(Locale.US, "%.1f", g.scores.quantile(0.9)),
+                String.format(Locale.US, "%.1f", g.averageSeconds()),
+                String.valueOf(g.hints),
+                String.valueOf(g.correct),
+                String.valueOf(g.wrong),
+            });
+        }
+
+        switch (format) {
+            case "csv" -> {
+                List<String> header = new ArrayList<>(names);
+                header.addAll(List.of(columns));
+                System.out.println(String.join(",", header));
+                for (int i = 0; i < groups.size(); i++) {
+                    StringBuilder line = new StringBuilder();
+                    for (String k : groups.get(i).key) {
+                        line.append(StatsManager.escapeCsv(k)).append(',');
+                    }
+                    System.out.println(line.append(String.join(",", cells.get(i))));
+                }
+            }
+            case "json" -> {
+                StringBuilder json = new StringBuilder("[");
+                for (int i = 0; i < groups.size(); i++) {
+                    json.append(i == 0 ? "\n  {" : ",\n  {");
+                    String[] key = groups.get(i).key;
+                    for (int k = 0; k < key.length; k++) {
+                        json.append(k == 0 ? "" : ", ").append(jsonString(names.get(k))).append(": ")
+                            .append(jsonString(key[k]));
+                    }
+                    for (int c = 0; c < columns.length; c++) {
+                        json.append(", ").append(jsonString(columns[c])).append(": ").append(cells.get(i)[c]);
+                    }
+                    json.append('}');
+                }
+                System.out.println(json.append(groups.isEmpty() ? "]" : "\n]"));
+            }
+            default -> {
+                int[] widths = new int[names.size() + columns.length];
+                for (int k = 0; k < names.size(); k++) {
+                    widths[k] = names.get(k).length();
+                    for (Group g : groups) {
+                        widths[k] = Math.max(widths[k], g.key[k].length());
+                    }
+                }
+                for (int c = 0; c < columns.length; c++) {
+                    widths[names.size() + c] = columns[c].length();
+                }
+                StringBuilder header = new StringBuilder();
+                for (int k = 0; k < names.size(); k++) {
+                    header.append(String.format("%-" + widths[k] + "s | ", names.get(k)));
+                }
+                for (int c = 0; c < columns.length; c++) {
+                    header.append(String.format("%" + widths[names.size() + c] + "s", columns[c]))
+                          .append(c < columns.length - 1 ? " | " : "");
+                }
+                System.out.println(header);
+                System.out.println("-".repeat(header.length()));
+                for (int i = 0; i < groups.size(); i++) {
+                    StringBuilder line = new StringBuilder();
+                    for (int k = 0; k < names.size(); k++) {
+                        line.append(String.format("%-" + widths[k] + "s | ", groups.get(i).key[k]));
+                    }
+                    for (int c = 0; c < columns.length; c++) {
+                        line.append(String.format("%" + widths[names.size() + c] + "s", cells.get(i)[c]))
+                            .append(c < columns.length - 1 ? " | " : "");
+                    }
+                    System.out.println(line);
+                }
+            }
+        }
+    }
+
+    /** @return the file itself, or the history segments and archives in a directory */
+    private static List<Path> historyFiles(Path path) {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> list = Files.list(path)) {
+            return list.filter(p -> p.getFileName().toString().endsWith(".csv")
+                                    || p.getFileName().toString().endsWith(".csv.gz"))
+                       .sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
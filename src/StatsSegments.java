@@ -0,0 +1,663 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-process segment files for the stats history.
+ * Every process appends only to its own segment, so concurrent writers on a
+ * shared (e.g. NFS) home directory never interleave or wait on each other.
+ * The only cross-process lock is taken while a new segment is registered
+ * or sealed segments are compacted.
+ *
+ * <p>Readers merge all segments lazily, ordered by the timestamp column.</p>
+ *
+ * <p>A segment is rotated once it exceeds {@link #MAX_SEGMENT_BYTES} or
+ * {@link #MAX_SEGMENT_AGE_MS}. Segments older than that (plus a grace period)
+ * are sealed and {@link #compact()} folds them into a gzip archive with a
+ * per-theme summary next to it, so old data can be aggregated without
+ * decompressing it. Archives are named after the range of segment sequences
+ * they hold and are moved into place before those segments are deleted;
+ * readers skip every segment inside an archive's range, so a crash or a
+ * concurrent compaction never shows a row twice. Compaction also prunes
+ * the registry down to the segments still on disk.</p>
+ *
+ * @author GasTheJuice
+ */
+public class StatsSegments {
+    /** Size after which a segment is rotated */
+    public static final long MAX_SEGMENT_BYTES = 1 << 20;
+    /** Age after which a segment is rotated */
+    public static final long MAX_SEGMENT_AGE_MS = 24L * 60 * 60 * 1000;
+
+    private static final long SEAL_GRACE_MS = 60L * 60 * 1000;
+    private static final String REGISTRY_FILE = "segments.idx";
+    private static final String ARCHIVE_SUFFIX = ".csv.gz";
+    private static final String SUMMARY_SUFFIX = ".summary";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("^seg-(\\d+)-(\\d+)-.*\\.csv$");
+    private static final Pattern ARCHIVE_NAME = Pattern.compile("^archive-(\\d+)-(\\d+)\\.csv\\.gz$");
+
+    private final Path dir;
+    private final Path legacyFile;
+    /** FileLocks are per JVM, so registration and compaction are also serialized in-process */
+    private final Object registryMonitor = new Object();
+    private FileChannel segment;
+    private Path segmentPath;
+    private long segmentCreated;
+
+    /**
+     * Creates a segment store.
+     *
+     * @param dir directory holding the segments and their registry
+     * @param legacyFile single-file history from older versions, merged on read if present
+     */
+    public StatsSegments(Path dir, Path legacyFile) {
+        this.dir = dir;
+        this.legacyFile = legacyFile;
+    }
+
+    /**
+     * Appends one CSV line to this process's segment, registering it on first use.
+     *
+     * @param line CSV line without line separator
+     * @return number of bytes written
+     * @throws IOException if the segment cannot be registered or written
+     */
+    public synchronized long append(String line) throws IOException {
+        if (segment != null && (segment.size() >= MAX_SEGMENT_BYTES
+                || System.currentTimeMillis() - segmentCreated >= MAX_SEGMENT_AGE_MS)) {
+            segment.close();
+            segment = null;
+        }
+        if (segment == null) {
+            segmentCreated = System.currentTimeMillis();
+            segmentPath = register(segmentCreated);
+            segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE,
+                                       StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        ByteBuffer buf = ByteBuffer.wrap((line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) {
+            segment.write(buf);
+        }
+        return buf.capacity();
+    }
+
+    /**
+     * Allocates a new segment name under an exclusive lock on the registry.
+     *
+     * @param created creation time encoded into the name, used to decide when it is sealed
+     * @return path of the newly registered segment
+     */
+    private Path register(long created) throws IOException {
+        Files.createDirectories(dir);
+        synchronized (registryMonitor) {
+            return registerLocked(created);
+        }
+    }
+
+    private Path registerLocked(long created) throws IOException {
+        try (FileChannel registry = FileChannel.open(dir.resolve(REGISTRY_FILE), StandardOpenOption.CREATE,
+                                                     StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            registry.lock(); // released when the channel is closed
+            // Compaction prunes deleted names from the registry, so the segments and archives on disk
+            // carry the counter on; a reused sequence would count as archived and be dropped.
+            List<String> names = readRegistry(registry);
+            for (Path p : listSegmentFiles()) {
+                names.add(p.getFileName().toString());
+            }
+            long sequence = Math.max(lastSequence(names), lastArchivedSequence()) + 1;
+            String host = System.getenv().getOrDefault("HOSTNAME", System.getenv().getOrDefault("COMPUTERNAME", "host"));
+            String name = String.format("seg-%06d-%d-%s-%d.csv", sequence, created,
+                                        host.replaceAll("[^A-Za-z0-9_.-]", "_"), ProcessHandle.current().pid());
+            registry.position(registry.size());
+            ByteBuffer buf = ByteBuffer.wrap((name + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buf.hasRemaining()) {
+                registry.write(buf);
+            }
+            registry.force(false);
+            // Created under the lock, so a compaction never prunes the name before the file exists.
+            return Files.createFile(dir.resolve(name));
+        }
+    }
+
+    private static List<String> readRegistry(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+        channel.position(0);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) < 0) {
+                break;
+            }
+        }
+        List<String> names = new ArrayList<>();
+        for (String name : new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8).split("\n")) {
+            if (!name.isBlank()) {
+                names.add(name.trim());
+            }
+        }
+        return names;
+    }
+
+    /** Rewrites the registry in place, it is the file other processes lock. */
+    private static void writeRegistry(FileChannel channel, List<String> names) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (String name : names) {
+            content.append(name).append('\n');
+        }
+        ByteBuffer buf = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+        channel.position(0);
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        channel.truncate(channel.position());
+        channel.force(false);
+    }
+
+    private static long lastSequence(List<String> names) {
+        long last = 0;
+        for (String name : names) {
+            Matcher m = SEGMENT_NAME.matcher(name);
+            if (m.matches()) {
+                last = Math.max(last, Long.parseLong(m.group(1)));
+            }
+        }
+        return last;
+    }
+
+    private long lastArchivedSequence() {
+        long last = 0;
+        for (long[] range : archivedRanges(listArchives(ARCHIVE_SUFFIX))) {
+            last = Math.max(last, range[1]);
+        }
+        return last;
+    }
+
+    /**
+     * @param archives archive files
+     * @return first and last segment sequence held by each of them
+     */
+    private static List<long[]> archivedRanges(List<Path> archives) {
+        List<long[]> ranges = new ArrayList<>();
+        for (Path p : archives) {
+            Matcher m = ARCHIVE_NAME.matcher(p.getFileName().toString());
+            if (m.matches()) {
+                ranges.add(new long[] {Long.parseLong(m.group(1)), Long.parseLong(m.group(2))});
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Drops the segments that an archive already holds: those whose archive was
+     * moved into place but which were not deleted yet, or not at all after a crash.
+     */
+    private static List<Path> unarchived(List<Path> segments, List<Path> archives) {
+        List<long[]> ranges = archivedRanges(archives);
+        List<Path> live = new ArrayList<>();
+        for (Path p : segments) {
+            Matcher m = SEGMENT_NAME.matcher(p.getFileName().toString());
+            if (m.matches() && isArchived(Long.parseLong(m.group(1)), ranges)) {
+                continue;
+            }
+            live.add(p);
+        }
+        return live;
+    }
+
+    private static boolean isArchived(long sequence, List<long[]> ranges) {
+        for (long[] range : ranges) {
+            if (sequence >= range[0] && sequence <= range[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists all readable history files: the legacy file plus every segment
+     * that no archive holds yet.
+     *
+     * @return existing segment files
+     */
+    public List<Path> listSegments() {
+        // Archives are listed after the segments: an archive is moved into place before its
+        // segments are deleted, so every segment listed here that it holds is skipped.
+        List<Path> files = listSegmentFiles();
+        return unarchived(files, listArchives(ARCHIVE_SUFFIX));
+    }
+
+    private List<Path> listSegmentFiles() {
+        List<Path> files = new ArrayList<>();
+        if (legacyFile != null && Files.exists(legacyFile)) {
+            files.add(legacyFile);
+        }
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        // The directory, not the registry, is listed: compaction rewrites the registry in place.
+        try (Stream<Path> entries = Files.list(dir)) {
+            entries.filter(p -> SEGMENT_NAME.matcher(p.getFileName().toString()).matches())
+                   .sorted(Comparator.comparingLong(StatsSegments::sequenceOf))
+                   .forEach(files::add);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return files;
+    }
+
+    private static long sequenceOf(Path segment) {
+        Matcher m = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        return m.matches() ? Long.parseLong(m.group(1)) : 0;
+    }
+
+    /**
+     * Opens a lazy, time-ordered merge over the given files.
+     *
+     * @param files segment files, each ordered by time
+     * @return merged row iterator; must be closed
+     */
+    public static History merge(List<Path> files) {
+        return new History(files);
+    }
+
+    /** @return lazy, time-ordered view over all live (not yet archived) segments */
+    public History open() {
+        return merge(listSegments());
+    }
+
+    /** @return lazy, time-ordered view over archived and live rows together */
+    public History openAll() {
+        List<Path> segments = listSegmentFiles();
+        List<Path> files = listArchives(ARCHIVE_SUFFIX);
+        files.addAll(unarchived(segments, files));
+        return merge(files);
+    }
+
+    /**
+     * Folds all sealed segments into one gzip archive plus a summary snapshot.
+     * Runs under a non-blocking registry lock, so only one process compacts at a time
+     * and a busy registry simply postpones the pass.
+     *
+     * @return number of segments compacted
+     */
+    public int compact() {
+        if (!Files.exists(dir.resolve(REGISTRY_FILE))) {
+            return 0;
+        }
+        synchronized (registryMonitor) {
+            return compactLocked();
+        }
+    }
+
+    private int compactLocked() {
+        try (FileChannel registry = FileChannel.open(dir.resolve(REGISTRY_FILE),
+                                                     StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock lock = registry.tryLock()) {
+            if (lock == null) {
+                return 0;
+            }
+            // Segments an archive already holds are left over from a crash after the archive was moved.
+            List<Path> archives = listArchives(ARCHIVE_SUFFIX);
+            List<Path> registered = listSegmentFiles();
+            List<Path> live = unarchived(registered, archives);
+            for (Path p : registered) {
+                if (!live.contains(p)) {
+                    Files.deleteIfExists(p);
+                }
+            }
+
+            // Readers skip every sequence inside the archive's range, so it must not
+            // reach past a segment that is still being written.
+            long sealedBefore = System.currentTimeMillis() - MAX_SEGMENT_AGE_MS - SEAL_GRACE_MS;
+            long firstOpen = Long.MAX_VALUE;
+            for (Path p : live) {
+                Matcher m = SEGMENT_NAME.matcher(p.getFileName().toString());
+                if (m.matches() && (Long.parseLong(m.group(2)) >= sealedBefore || p.equals(segmentPath))) {
+                    firstOpen = Math.min(firstOpen, Long.parseLong(m.group(1)));
+                }
+            }
+            List<Path> sealed = new ArrayList<>();
+            long firstSeq = Long.MAX_VALUE, lastSeq = 0;
+            for (Path p : live) {
+                Matcher m = SEGMENT_NAME.matcher(p.getFileName().toString());
+                if (m.matches() && Long.parseLong(m.group(1)) < firstOpen) {
+                    sealed.add(p);
+                    firstSeq = Math.min(firstSeq, Long.parseLong(m.group(1)));
+                    lastSeq = Math.max(lastSeq, Long.parseLong(m.group(1)));
+                }
+            }
+            if (sealed.isEmpty()) {
+                pruneRegistry(registry);
+                return 0;
+            }
+
+            String base = String.format("archive-%06d-%06d", firstSeq, lastSeq);
+            Path archive = dir.resolve(base + ARCHIVE_SUFFIX);
+            Path summaryFile = dir.resolve(base + SUMMARY_SUFFIX);
+            Path archiveTmp = dir.resolve(base + ARCHIVE_SUFFIX + ".tmp");
+            Path summaryTmp = dir.resolve(base + SUMMARY_SUFFIX + ".tmp");
+
+            Map<String, Summary> summaries = new TreeMap<>();
+            try (History rows = merge(sealed);
+                 Writer out = new BufferedWriter(new OutputStreamWriter(
+                     new GZIPOutputStream(Files.newOutputStream(archiveTmp)), StandardCharsets.UTF_8))) {
+                while (rows.hasNext()) {
+                    String[] row = rows.next();
+                    out.write(toCsv(row));
+                    out.write('\n');
+                    if (row.length >= 7) {
+                        summaries.computeIfAbsent(row[1], k -> new Summary()).add(row);
+                    }
+                }
+            }
+            writeSummaries(summaries, summaryTmp);
+
+            Files.move(archiveTmp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(summaryTmp, summaryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (Path p : sealed) {
+                Files.deleteIfExists(p);
+            }
+            pruneRegistry(registry);
+            return sealed.size();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * Drops the names of segments that are no longer on disk from the registry.
+     * Must be called with the registry locked.
+     */
+    private void pruneRegistry(FileChannel registry) throws IOException {
+        List<String> names = readRegistry(registry);
+        List<String> kept = new ArrayList<>();
+        for (String name : names) {
+            if (Files.exists(dir.resolve(name))) {
+                kept.add(name);
+            }
+        }
+        if (kept.size() < names.size()) {
+            writeRegistry(registry, kept);
+        }
+    }
+
+    /**
+     * Reads the precomputed per-theme summaries of all archives, without decompressing them.
+     *
+     * @return summaries keyed by theme
+     */
+    public Map<String, Summary> readArchivedSummaries() {
+        Map<String, Summary> result = new TreeMap<>();
+        for (Path p : listArchives(SUMMARY_SUFFIX)) {
+            try {
+                for (String line : Files.readAllLines(p, StandardCharsets.UTF_8)) {
+                    String[] cols = parseCsv(line);
+                    if (cols.length == 9) {
+                        result.computeIfAbsent(cols[0], k -> new Summary()).merge(Summary.fromColumns(cols));
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                e.printStackTrace();
+            }
+        }
+        return result;
+    }
+
+    private List<Path> listArchives(String suffix) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        try (Stream<Path> entries = Files.list(dir)) {
+            entries.filter(p -> p.getFileName().toString().startsWith("archive-")
+                                && p.getFileName().toString().endsWith(suffix))
+                   .sorted()
+                   .forEach(files::add);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return files;
+    }
+
+    private static void writeSummaries(Map<String, Summary> summaries, Path target) throws IOException {
+        List<String> lines = new ArrayList<>();
+        summaries.forEach((theme, s) -> lines.add(toCsv(new String[] {
+            theme, String.valueOf(s.attempts), String.valueOf(s.correct), String.valueOf(s.wrong),
+            String.format(Locale.US, "%.2f", s.percentSum), String.valueOf(s.hints), String.valueOf(s.seconds),
+            s.first, s.last
+        })));
+        Files.write(target, lines, StandardCharsets.UTF_8);
+    }
+
+    private static String toCsv(String[] row) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(StatsManager.escapeCsv(row[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Splits one CSV line produced by {@link StatsManager#escapeCsv(String)} into columns.
+     *
+     * @param line CSV line
+     * @return column values with quoting removed
+     */
+    public static String[] parseCsv(String line) {
+        if (line.indexOf('"') < 0) {
+            return line.split(",", -1);
+        }
+        List<String> cols = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cols.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        cols.add(cur.toString());
+        return cols.toArray(new String[0]);
+    }
+
+    /** Aggregated attempts of one theme, mergeable across archives */
+    public static final class Summary {
+        long attempts;
+        long correct;
+        long wrong;
+        long hints;
+        long seconds;
+        double percentSum;
+        String first;
+        String last;
+
+        void add(String[] row) {
+            try {
+                correct += Long.parseLong(row[2].trim());
+                wrong += Long.parseLong(row[3].trim());
+                percentSum += Double.parseDouble(row[4].trim());
+                hints += Long.parseLong(row[5].trim());
+                seconds += Long.parseLong(row[6].trim());
+                attempts++;
+                first = first == null || row[0].compareTo(first) < 0 ? row[0] : first;
+                last = last == null || row[0].compareTo(last) > 0 ? row[0] : last;
+            } catch (NumberFormatException ignored) {}
+        }
+
+        void merge(Summary o) {
+            attempts += o.attempts;
+            correct += o.correct;
+            wrong += o.wrong;
+            hints += o.hints;
+            seconds += o.seconds;
+            percentSum += o.percentSum;
+            first = first == null || (o.first != null && o.first.compareTo(first) < 0) ? o.first : first;
+            last = last == null || (o.last != null && o.last.compareTo(last) > 0) ? o.last : last;
+        }
+
+        static Summary fromColumns(String[] cols) {
+            Summary s = new Summary();
+            s.attempts = Long.parseLong(cols[1]);
+            s.correct = Long.parseLong(cols[2]);
+            s.wrong = Long.parseLong(cols[3]);
+            s.percentSum = Double.parseDouble(cols[4]);
+            s.hints = Long.parseLong(cols[5]);
+            s.seconds = Long.parseLong(cols[6]);
+            s.first = cols[7];
+            s.last = cols[8];
+            return s;
+        }
+
+        /** @return number of attempts */
+        public long getAttempts() { return attempts; }
+
+        /** @return average score percentage */
+        public double getAveragePercentage() { return attempts == 0 ? 0 : percentSum / attempts; }
+
+        /** @return average time taken in seconds */
+        public double getAverageSeconds() { return attempts == 0 ? 0 : (double) seconds / attempts; }
+
+        /** @return total hints used */
+        public long getHints() { return hints; }
+
+        /** @return timestamp of the oldest attempt */
+        public String getFirst() { return first; }
+
+        /** @return timestamp of the newest attempt */
+        public String getLast() { return last; }
+    }
+
+    /** K-way merge of segment readers ordered by the timestamp in column 0 */
+    public static final class History implements Iterator<String[]>, Closeable {
+        private final PriorityQueue<Cursor> heap =
+            new PriorityQueue<>(Comparator.comparing((Cursor c) -> c.row[0]).thenComparingInt(c -> c.order));
+        private final List<BufferedReader> readers = new ArrayList<>();
+        private long bytesRead;
+
+        private History(List<Path> files) {
+            int order = 0;
+            for (Path p : files) {
+                try {
+                    BufferedReader reader = p.getFileName().toString().endsWith(".gz")
+                        ? new BufferedReader(new InputStreamReader(
+                              new GZIPInputStream(Files.newInputStream(p)), StandardCharsets.UTF_8))
+                        : Files.newBufferedReader(p, StandardCharsets.UTF_8);
+                    readers.add(reader);
+                    Cursor c = new Cursor(reader, order++);
+                    if (c.advance()) {
+                        heap.add(c);
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heap.isEmpty();
+        }
+
+        @Override
+        public String[] next() {
+            Cursor c = heap.poll();
+            if (c == null) {
+                throw new NoSuchElementException();
+            }
+            String[] row = c.row;
+            bytesRead += c.lineBytes;
+            if (c.advance()) {
+                heap.add(c);
+            }
+            return row;
+        }
+
+        /** @return approximate number of (uncompressed) bytes consumed so far */
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        @Override
+        public void close() {
+            for (BufferedReader r : readers) {
+                try {
+                    r.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            heap.clear();
+        }
+    }
+
+    /** Current row of one segment */
+    private static final class Cursor {
+        final BufferedReader reader;
+        final int order;
+        String[] row;
+        int lineBytes;
+
+        Cursor(BufferedReader reader, int order) {
+            this.reader = reader;
+            this.order = order;
+        }
+
+        boolean advance() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        row = parseCsv(line);
+                        lineBytes = line.length() + 1;
+                        return true;
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return false;
+        }
+    }
+}
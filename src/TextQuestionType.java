@@ -0,0 +1,52 @@
+import java.awt.Dimension;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+
+/**
+ * Free-text question; any of the accepted answers matches after normalization.
+ *
+ * @author GasTheJuice
+ */
+public class TextQuestionType implements QuestionTypeProvider {
+
+    @Override
+    public Question.QuestionType type() { return Question.QuestionType.TEXT; }
+
+    @Override
+    public QuestionTypeHandler create() { return new Handler(); }
+
+    /**
+     * Builds a labelled single-line text input, shared with {@link NumericQuestionType}.
+     *
+     * @return view reading the text field
+     */
+    static QuestionTypeHandler.AnswerView textInput() {
+        JPanel center = QuestionTypes.column();
+        JTextField textField = new JTextField();
+        textField.setMaximumSize(new Dimension(Integer.MAX_VALUE, textField.getPreferredSize().height));
+        center.add(new JLabel("Your answer:"));
+        center.add(textField);
+        return new QuestionTypeHandler.AnswerView() {
+            @Override
+            public JComponent getComponent() { return center; }
+
+            @Override
+            public String getUserAnswer() { return textField.getText(); }
+        };
+    }
+
+    static final class Handler implements QuestionTypeHandler {
+        @Override
+        public AnswerView render(Question question) {
+            return textInput();
+        }
+
+        @Override
+        public boolean grade(Question question, String answer) {
+            String user = Question.normalize(answer);
+            return question.getAnswers().stream().anyMatch(c -> Question.normalize(c).equals(user));
+        }
+    }
+}
@@ -0,0 +1,350 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalog of the themes in the question bank, with one shard per theme.
+ * Only the catalog (theme names and question counts) is read at startup.
+ * A theme's shard is mapped the first time the theme is asked for and kept
+ * through a {@link SoftReference}, so the GC can drop shards of themes that
+ * are not in use when memory runs low; they are simply mapped again next time.
+ *
+ * <p>On disk a catalog is a directory holding {@value #CATALOG_FILE}, with one
+ * {@code theme,count,shard,fingerprint} line per theme, and one {@link BankSnapshot}
+ * file per theme. A shard is named after its fingerprint, a hash of the theme's
+ * question ids and hints, so {@link BankImporter} can tell from the index alone
+ * which themes changed and never overwrites a shard another process has mapped.
+ * An import deletes the shards its new index no longer names; a running catalog
+ * that finds its shard gone re-reads the index and follows it to the new one.</p>
+ *
+ * <p>A catalog can also sit over a single {@link BankSnapshot}. Its themes are
+ * grouped by reading each question's interned theme only, and a theme's
+ * questions are decoded the first time the theme is asked for.</p>
+ *
+ * @author GasTheJuice
+ */
+public class ThemeCatalog {
+    /** Default catalog directory, next to the images folder */
+    public static final String CATALOG_DIR = "bank";
+
+    /** Name of the catalog index inside the catalog directory */
+    public static final String CATALOG_FILE = "catalog.csv";
+
+    private final Map<String, Shard> shards;
+
+    /** One theme of the catalog and its (possibly evicted) questions */
+    private static final class Shard {
+        final String theme;
+        /** Count and file are replaced when a newer import moved the theme to another shard */
+        volatile int count;
+        volatile Path file;
+        final String fingerprint;
+        final List<Question> pinned;
+        /** Snapshot and question indices of a theme that lives inside a single-file snapshot */
+        final BankSnapshot snapshot;
+        final int[] indices;
+        SoftReference<List<Question>> cached = new SoftReference<>(null);
+
+        Shard(String theme, int count, Path file, String fingerprint, List<Question> pinned) {
+            this(theme, count, file, fingerprint, pinned, null, null);
+        }
+
+        Shard(String theme, int count, Path file, String fingerprint, List<Question> pinned,
+              BankSnapshot snapshot, int[] indices) {
+            this.theme = theme;
+            this.count = count;
+            this.file = file;
+            this.fingerprint = fingerprint;
+            this.pinned = pinned;
+            this.snapshot = snapshot;
+            this.indices = indices;
+        }
+    }
+
+    private ThemeCatalog(Map<String, Shard> shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * Reads the catalog index of a sharded bank. Shards are not opened here.
+     *
+     * @param dir catalog directory
+     * @return loaded catalog
+     * @throws IOException if the index is missing or malformed
+     */
+    public static ThemeCatalog load(Path dir) throws IOException {
+        Map<String, Shard> shards = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(dir.resolve(CATALOG_FILE), StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] row = StatsSegments.parseCsv(line);
+            if (row.length < 3) {
+                throw new IOException("Malformed catalog line: " + line);
+            }
+            try {
+                String fingerprint = row.length > 3 && !row[3].isBlank() ? row[3].trim() : null;
+                shards.put(row[0], new Shard(row[0], Integer.parseInt(row[1].trim()), dir.resolve(row[2]),
+                    fingerprint, null));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed catalog line: " + line, e);
+            }
+        }
+        return new ThemeCatalog(shards);
+    }
+
+    /**
+     * Builds an in-memory catalog over an already loaded bank.
+     * Its themes cannot be evicted since there is nothing to reload them from.
+     *
+     * @param bank questions, grouped into themes in order of first appearance
+     * @return catalog over the bank
+     */
+    public static ThemeCatalog of(List<Question> bank) {
+        Map<String, Shard> shards = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Question>> e : groupByTheme(bank).entrySet()) {
+            List<Question> questions = Collections.unmodifiableList(e.getValue());
+            shards.put(e.getKey(), new Shard(e.getKey(), questions.size(), null, null, questions));
+        }
+        return new ThemeCatalog(shards);
+    }
+
+    /**
+     * Builds a catalog over a single-file snapshot without decoding any question.
+     * Only the theme of each question is read to group them.
+     *
+     * @param snapshot loaded snapshot
+     * @return catalog over the snapshot, themes in order of first appearance
+     */
+    public static ThemeCatalog of(BankSnapshot snapshot) {
+        Map<String, List<Integer>> byTheme = new LinkedHashMap<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            byTheme.computeIfAbsent(snapshot.getTheme(i), t -> new ArrayList<>()).add(i);
+        }
+        Map<String, Shard> shards = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> e : byTheme.entrySet()) {
+            int[] indices = e.getValue().stream().mapToInt(Integer::intValue).toArray();
+            shards.put(e.getKey(), new Shard(e.getKey(), indices.length, null, null, null, snapshot, indices));
+        }
+        return new ThemeCatalog(shards);
+    }
+
+    /**
+     * Writes a bank as one snapshot shard per theme plus the catalog index.
+     * Shards of themes that did not change since the last write are kept.
+     *
+     * @param bank questions to store
+     * @param dir catalog directory, created if needed
+     * @throws IOException if a file cannot be written
+     */
+    public static void write(List<Question> bank, Path dir) throws IOException {
+        BankImporter.importBank(bank, dir);
+    }
+
+    /**
+     * Replaces the catalog index. Called after all shards it names are written,
+     * so readers never see it point at missing shards.
+     *
+     * @param dir catalog directory
+     * @param rows {@code theme,count,shard,fingerprint} per theme
+     * @throws IOException if the index cannot be written
+     */
+    static void writeIndex(Path dir, List<String[]> rows) throws IOException {
+        StringBuilder index = new StringBuilder();
+        for (String[] row : rows) {
+            index.append(StatsManager.escapeCsv(row[0]));
+            for (int i = 1; i < row.length; i++) {
+                index.append(',').append(row[i]);
+            }
+            index.append('\n');
+        }
+        Path target = dir.resolve(CATALOG_FILE);
+        Path tmp = dir.resolve(CATALOG_FILE + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write(index.toString());
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Hashes everything a theme's shard holds: the theme name and the id and
+     * hint of each question, in order.
+     *
+     * @param questions questions of one theme
+     * @return 16 hex digits of a SHA-256
+     */
+    static String fingerprint(List<Question> questions) {
+        MessageDigest sha = Question.sha256();
+        for (Question q : questions) {
+            sha.update((q.getTheme() + '\u001f' + q.getId() + '\u001f' + q.getHint() + '\u001e')
+                .getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(sha.digest(), 0, 8);
+    }
+
+    /**
+     * @param fingerprint fingerprint of a theme's questions
+     * @return file name of the shard holding them
+     */
+    static String shardFileName(String fingerprint) {
+        return "shard-" + fingerprint + ".qbs";
+    }
+
+    static Map<String, List<Question>> groupByTheme(List<Question> bank) {
+        Map<String, List<Question>> byTheme = new LinkedHashMap<>();
+        for (Question q : bank) {
+            byTheme.computeIfAbsent(q.getTheme(), t -> new ArrayList<>()).add(q);
+        }
+        return byTheme;
+    }
+
+    /** @return theme names in catalog order */
+    public List<String> getThemes() {
+        return List.copyOf(shards.keySet());
+    }
+
+    /**
+     * Returns the number of questions of a theme, as recorded in the catalog.
+     *
+     * @param theme theme name
+     * @return question count, or 0 for an unknown theme
+     */
+    public int getQuestionCount(String theme) {
+        Shard shard = shards.get(theme);
+        return shard == null ? 0 : shard.count;
+    }
+
+    /**
+     * @param theme theme name
+     * @return fingerprint recorded in the catalog, or null if unknown or not recorded
+     */
+    String getFingerprint(String theme) {
+        Shard shard = shards.get(theme);
+        return shard == null ? null : shard.fingerprint;
+    }
+
+    /**
+     * @param theme theme name
+     * @return shard file of the theme, or null if unknown or in memory only
+     */
+    Path getShardFile(String theme) {
+        Shard shard = shards.get(theme);
+        return shard == null ? null : shard.file;
+    }
+
+    /**
+     * Returns the questions of one theme, mapping its shard if it is not loaded.
+     * Callers should hold on to the returned list only while they need it.
+     * A shard that fails to load is not cached, so the next call tries again.
+     *
+     * @param theme theme name
+     * @return questions of the theme, or null for an unknown theme
+     * @throws UncheckedIOException if the theme's shard cannot be read
+     */
+    public List<Question> getQuestions(String theme) {
+        Shard shard = shards.get(theme);
+        if (shard == null) {
+            return null;
+        }
+        if (shard.pinned != null) {
+            return shard.pinned;
+        }
+        synchronized (shard) {
+            List<Question> questions = shard.cached.get();
+            if (questions == null) {
+                questions = shard.snapshot != null ? decodeShard(shard) : loadShard(shard);
+                shard.cached = new SoftReference<>(questions);
+            }
+            return questions;
+        }
+    }
+
+    /**
+     * @param theme theme name
+     * @return true if the theme's questions are currently in memory
+     */
+    public boolean isLoaded(String theme) {
+        Shard shard = shards.get(theme);
+        return shard != null && (shard.pinned != null || shard.cached.get() != null);
+    }
+
+    private static List<Question> decodeShard(Shard shard) {
+        Question[] questions = new Question[shard.indices.length];
+        for (int i = 0; i < questions.length; i++) {
+            questions[i] = shard.snapshot.get(shard.indices[i]);
+        }
+        return List.of(questions);
+    }
+
+    private static List<Question> loadShard(Shard shard) {
+        try {
+            try {
+                return readShard(shard);
+            } catch (NoSuchFileException e) {
+                // A newer import replaced the shard and deleted this one; follow the current index.
+                ThemeCatalog latest = load(shard.file.getParent());
+                Path current = latest.getShardFile(shard.theme);
+                if (current == null || current.equals(shard.file)) {
+                    throw e;
+                }
+                shard.count = latest.getQuestionCount(shard.theme);
+                shard.file = current;
+                return readShard(shard);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load the questions of '" + shard.theme + "'", e);
+        }
+    }
+
+    private static List<Question> readShard(Shard shard) throws IOException {
+        List<Question> questions = BankSnapshot.load(shard.file).asList();
+        if (questions.size() != shard.count) {
+            System.err.println("Catalog lists " + shard.count + " questions for '" + shard.theme
+                + "' but " + shard.file + " holds " + questions.size());
+        }
+        return questions;
+    }
+
+    /**
+     * Build step entry point: imports the built-in question bank into a sharded
+     * catalog, rewriting only the themes that changed, and prints what changed.
+     *
+     * @param args optional target directory (defaults to {@value #CATALOG_DIR})
+     */
+    public static void main(String[] args) {
+        Path target = Paths.get(args.length > 0 ? args[0] : CATALOG_DIR);
+        List<Question> questions = QuestionBank.getAllQuestions();
+        QuestionValidator.Report report = QuestionValidator.validateAll(questions);
+        System.out.print(report);
+        if (report.hasErrors()) {
+            System.err.println("Catalog not written, fix the errors above first.");
+            System.exit(1);
+        }
+        try {
+            BankImporter.Result result = BankImporter.importBank(questions, target);
+            ThemeCatalog catalog = load(target);
+            for (String theme : catalog.getThemes()) {
+                System.out.println(catalog.getQuestionCount(theme) + "\t" + theme);
+            }
+            System.out.print(result);
+            AnswerSketches.rename(result.getRenamed());
+            System.out.println("Imported " + questions.size() + " questions into " + target);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
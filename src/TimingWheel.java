@@ -0,0 +1,274 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hierarchical timing wheel that tracks many deadlines, such as the time limits
+ * of thousands of concurrent quiz sessions, with a single ticker thread.
+ *
+ * <p>Time advances in ticks. Level 0 has one slot per tick for the next
+ * {@value #SLOTS} ticks. Each higher level has slots {@value #SLOTS} times as
+ * wide, so {@value #LEVELS} levels cover {@code SLOTS^LEVELS} ticks; anything
+ * farther waits in the last slot of the top level. Scheduling and cancelling
+ * link or unlink a node in a slot list, O(1) whatever the number of pending
+ * deadlines. When a lower level wraps around, the next slot of the level above
+ * is cascaded down, so each deadline moves at most {@value #LEVELS} times.</p>
+ *
+ * <p>On every tick, the ticker collects all deadlines that came due and hands
+ * them to the executor as one batch, so slow callbacks never hold up the clock.
+ * Deadlines fire at most one tick late.</p>
+ *
+ * @author GasTheJuice
+ */
+public class TimingWheel implements AutoCloseable {
+    /** Default tick length */
+    public static final long DEFAULT_TICK_MILLIS = 100;
+
+    /** Slots per level, a power of two */
+    public static final int SLOTS = 64;
+
+    /** Number of levels */
+    public static final int LEVELS = 4;
+
+    private static final int BITS = Integer.numberOfTrailingZeros(SLOTS);
+    private static final int MASK = SLOTS - 1;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Executor executor;
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS];
+    private final Thread ticker;
+    private long currentTick;
+    private int pending;
+    private volatile boolean running = true;
+
+    /** A scheduled deadline */
+    public static final class Timeout {
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadlineTick;
+        private Timeout prev;
+        private Timeout next;
+        private int level = -1;
+        private int slot;
+        private boolean cancelled;
+        private boolean expired;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadlineTick) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Cancels the deadline if it has not fired yet.
+         *
+         * @return true if this call cancelled it
+         */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+
+        /** @return true if the deadline was cancelled before firing */
+        public boolean isCancelled() {
+            synchronized (wheel) {
+                return cancelled;
+            }
+        }
+
+        /** @return true if the deadline came due */
+        public boolean isExpired() {
+            synchronized (wheel) {
+                return expired;
+            }
+        }
+    }
+
+    /**
+     * Creates a wheel ticking every {@link #DEFAULT_TICK_MILLIS} and starts its ticker.
+     *
+     * @param executor runs the batches of expired tasks
+     */
+    public TimingWheel(Executor executor) {
+        this(DEFAULT_TICK_MILLIS, executor);
+    }
+
+    /**
+     * Creates a wheel and starts its ticker.
+     *
+     * @param tickMillis length of a tick, the resolution of the deadlines
+     * @param executor runs the batches of expired tasks
+     */
+    public TimingWheel(long tickMillis, Executor executor) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.executor = executor;
+        this.startNanos = System.nanoTime();
+        this.ticker = new Thread(this::tickLoop, "timing-wheel");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Schedules a task to run once a delay has passed.
+     *
+     * @param delayMillis delay from now; 0 or less fires on the next tick
+     * @param task task to run on the executor
+     * @return handle to cancel the deadline
+     */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        long dueNanos = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout t = new Timeout(this, task, (dueNanos + tickNanos - 1) / tickNanos);
+        synchronized (this) {
+            insert(t, currentTick + 1);
+            pending++;
+        }
+        return t;
+    }
+
+    /** @return number of deadlines that neither fired nor were cancelled */
+    public synchronized int size() {
+        return pending;
+    }
+
+    private synchronized boolean cancel(Timeout t) {
+        if (t.cancelled || t.expired) {
+            return false;
+        }
+        t.cancelled = true;
+        unlink(t);
+        pending--;
+        return true;
+    }
+
+    /**
+     * Links a timeout into the slot matching its distance from the current tick.
+     * Timeouts already due go to the slot of tick {@code earliest}.
+     */
+    private void insert(Timeout t, long earliest) {
+        long due = Math.max(t.deadlineTick, earliest);
+        long delta = due - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        long span = 1L << (BITS * (level + 1));
+        if (delta >= span) {
+            // Beyond the top level: park in its farthest slot and cascade again from there.
+            due = currentTick + span - (1L << (BITS * level));
+        }
+        t.level = level;
+        t.slot = (int) (due >>> (BITS * level)) & MASK;
+        t.prev = null;
+        t.next = slots[level][t.slot];
+        if (t.next != null) {
+            t.next.prev = t;
+        }
+        slots[level][t.slot] = t;
+    }
+
+    private void unlink(Timeout t) {
+        if (t.level < 0) {
+            return;
+        }
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            slots[t.level][t.slot] = t.next;
+        }
+        if (t.next != null) {
+            t.next.prev = t.prev;
+        }
+        t.prev = null;
+        t.next = null;
+        t.level = -1;
+    }
+
+    /** Detaches a whole slot list and returns its first node. */
+    private Timeout drain(int level, int slot) {
+        Timeout head = slots[level][slot];
+        slots[level][slot] = null;
+        return head;
+    }
+
+    /**
+     * Moves the clock forward by one tick: cascades the higher levels whose
+     * lower level just wrapped, highest first, then collects the due timeouts.
+     */
+    private void advance(List<Timeout> due) {
+        currentTick++;
+        int top = 0;
+        while (top < LEVELS - 1 && (currentTick & ((1L << (BITS * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            Timeout t = drain(level, (int) (currentTick >>> (BITS * level)) & MASK);
+            while (t != null) {
+                Timeout next = t.next;
+                t.level = -1;
+                // The current tick's level 0 slot is collected after the cascade.
+                insert(t, currentTick);
+                t = next;
+            }
+        }
+        Timeout t = drain(0, (int) currentTick & MASK);
+        while (t != null) {
+            Timeout next = t.next;
+            t.level = -1;
+            if (t.deadlineTick <= currentTick) {
+                t.expired = true;
+                pending--;
+                due.add(t);
+            } else {
+                insert(t, currentTick + 1);
+            }
+            t = next;
+        }
+    }
+
+    private void tickLoop() {
+        while (running) {
+            long nextTick;
+            synchronized (this) {
+                nextTick = currentTick + 1;
+            }
+            long waitNanos = startNanos + nextTick * tickNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                continue;
+            }
+            List<Timeout> due = new ArrayList<>();
+            synchronized (this) {
+                long nowTick = (System.nanoTime() - startNanos) / tickNanos;
+                while (currentTick < nowTick) {
+                    advance(due);
+                }
+            }
+            if (!due.isEmpty()) {
+                try {
+                    executor.execute(() -> runBatch(due));
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static void runBatch(List<Timeout> batch) {
+        for (Timeout t : batch) {
+            try {
+                t.task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /** Stops the ticker; pending deadlines never fire. */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+}
@@ -0,0 +1,275 @@
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import javax.swing.UnsupportedLookAndFeelException;
+import com.formdev.flatlaf.FlatLightLaf;
+
+/**
+ * Off-screen benchmark of the Swing screens, so UI regressions show up in numbers.
+ *
+ * <p>For each scenario the component tree is built, laid out at its preferred
+ * size and painted into an image, and each phase is timed separately. The bytes
+ * allocated per iteration are read from the thread's allocation counter.
+ * Scenarios are:</p>
+ * <ul>
+ *   <li>{@code panel:TYPE}: a {@link QuestionPanel} for a question of each type</li>
+ *   <li>{@code screen:TYPE}: the panel plus the navigation bar, as built by
+ *       {@code MainFrame.showCurrentQuestion}</li>
+ *   <li>both of these as {@code :cold}, where the {@link CodePromptView} cache of
+ *       tokenized prompts is cleared before each iteration, as when a question is
+ *       first shown, and {@code :warm}, where it is reused, as when it is shown again</li>
+ *   <li>{@code history:N}: the history view of {@code MainFrame.showHistory}
+ *       over N synthetic rows</li>
+ * </ul>
+ *
+ * <p>Only lightweight components are built, so it runs with
+ * {@code java.awt.headless=true}, which is the default here. Should a component
+ * ever need a display, run it under Xvfb with
+ * {@code xvfb-run java -Djava.awt.headless=false UiBenchmark}.</p>
+ *
+ * <pre>
+ * java UiBenchmark --iterations=200 --warmup=100 --rows=10,1000,10000 --filter=panel
+ * </pre>
+ *
+ * @author GasTheJuice
+ */
+public class UiBenchmark {
+    private int iterations = 200;
+    private int warmup = 100;
+    private int[] historyRows = { 10, 1000, 10000 };
+    private String filter = "";
+
+    /** Timings of one scenario, in nanoseconds per iteration */
+    private static final class Result {
+        final String name;
+        final long[] build;
+        final long[] layout;
+        final long[] paint;
+        long allocatedBytes;
+        Dimension size;
+
+        Result(String name, int iterations) {
+            this.name = name;
+            this.build = new long[iterations];
+            this.layout = new long[iterations];
+            this.paint = new long[iterations];
+        }
+    }
+
+    /**
+     * Runs all scenarios and prints a table.
+     *
+     * @param args {@code --name=value} options, see class description
+     */
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        UiBenchmark bench = new UiBenchmark();
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "iterations" -> bench.iterations = Integer.parseInt(value);
+                case "warmup" -> bench.warmup = Integer.parseInt(value);
+                case "rows" -> bench.historyRows = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                case "filter" -> bench.filter = value;
+                default -> {
+                    System.err.println("Unknown option: " + arg);
+                    System.exit(2);
+                }
+            }
+        }
+        try {
+            UIManager.setLookAndFeel(new FlatLightLaf());
+        } catch (UnsupportedLookAndFeelException e) {
+            e.printStackTrace();
+        }
+        try {
+            SwingUtilities.invokeAndWait(bench::run);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /** Runs the scenarios on the event dispatch thread, where Swing expects to be used. */
+    private void run() {
+        System.out.printf(Locale.US, "Headless: %s, %d iterations after %d warmup%n",
+                          GraphicsEnvironment.isHeadless(), iterations, warmup);
+        Map<String, Supplier<JComponent>> scenarios = new LinkedHashMap<>();
+        for (Question q : sampleQuestions().values()) {
+            String type = q.getType().name();
+            scenarios.put("panel:" + type + ":cold", () -> new QuestionPanel(q));
+            scenarios.put("panel:" + type + ":warm", () -> new QuestionPanel(q));
+            scenarios.put("screen:" + type + ":cold", () -> questionScreen(q));
+            scenarios.put("screen:" + type + ":warm", () -> questionScreen(q));
+        }
+        for (int rows : historyRows) {
+            List<String[]> history = syntheticHistory(rows);
+            Map<String, StatsSegments.Summary> archived = syntheticArchive();
+            scenarios.put("history:" + rows, () -> MainFrame.buildHistoryView(history, archived));
+        }
+
+        System.out.printf(Locale.US, "%-27s %9s %9s %9s %9s %9s %9s %10s %9s%n", "scenario",
+                          "build p50", "p90", "layout p50", "p90", "paint p50", "p90", "alloc KB", "size");
+        for (Map.Entry<String, Supplier<JComponent>> e : scenarios.entrySet()) {
+            if (!e.getKey().contains(filter)) {
+                continue;
+            }
+            Result r = measure(e.getKey(), e.getValue(), e.getKey().endsWith(":cold"));
+            System.out.printf(Locale.US, "%-27s %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f %10.1f %9s%n", r.name,
+                              micros(r.build, 50), micros(r.build, 90), micros(r.layout, 50), micros(r.layout, 90),
+                              micros(r.paint, 50), micros(r.paint, 90), r.allocatedBytes / 1024.0,
+                              r.size.width + "x" + r.size.height);
+        }
+        System.out.println("Times in microseconds; alloc is the mean allocated per build, layout and paint.");
+    }
+
+    /**
+     * Builds, lays out and paints a component repeatedly, timing each phase.
+     * With {@code cold} set, cached prompt tokens are dropped before each build, untimed.
+     */
+    private Result measure(String name, Supplier<JComponent> factory, boolean cold) {
+        for (int i = 0; i < warmup; i++) {
+            if (cold) {
+                CodePromptView.clearCache();
+            }
+            JComponent c = factory.get();
+            layout(c);
+            paint(c);
+        }
+        Result r = new Result(name, iterations);
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            if (cold) {
+                CodePromptView.clearCache();
+            }
+            long t0 = System.nanoTime();
+            JComponent c = factory.get();
+            long t1 = System.nanoTime();
+            layout(c);
+            long t2 = System.nanoTime();
+            paint(c);
+            long t3 = System.nanoTime();
+            r.build[i] = t1 - t0;
+            r.layout[i] = t2 - t1;
+            r.paint[i] = t3 - t2;
+            r.size = c.getSize();
+        }
+        long allocated = allocatedBytes();
+        r.allocatedBytes = allocated < 0 || allocatedBefore < 0 ? -1 : (allocated - allocatedBefore) / iterations;
+        return r;
+    }
+
+    /** Sizes the component to its preferred size and lays out the whole tree, as showing it would. */
+    private static void layout(Component c) {
+        c.setSize(c.getPreferredSize());
+        layoutTree(c);
+    }
+
+    private static void layoutTree(Component c) {
+        if (c instanceof Container) {
+            Container container = (Container) c;
+            container.doLayout();
+            for (Component child : container.getComponents()) {
+                layoutTree(child);
+            }
+        }
+    }
+
+    private static void paint(JComponent c) {
+        int w = Math.max(1, c.getWidth());
+        int h = Math.max(1, c.getHeight());
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            c.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /** Same tree as {@code MainFrame.showCurrentQuestion} puts into the question container. */
+    private static JComponent questionScreen(Question q) {
+        JPanel container = new JPanel(new BorderLayout());
+        container.add(new QuestionPanel(q), BorderLayout.CENTER);
+        container.add(MainFrame.buildNavigationBar(new JLabel("Question 1 of 12"), new JLabel("05:00"),
+                      new JButton("Hint"), new JButton("Next"), new JButton("Submit")), BorderLayout.SOUTH);
+        return container;
+    }
+
+    /** @return the first question of each type in the bank */
+    private static Map<Question.QuestionType, Question> sampleQuestions() {
+        Map<Question.QuestionType, Question> samples = new TreeMap<>();
+        for (Question q : QuestionBank.getAllQuestions()) {
+            samples.putIfAbsent(q.getType(), q);
+        }
+        return samples;
+    }
+
+    private static List<String[]> syntheticHistory(int rows) {
+        SplittableRandom rnd = new SplittableRandom(rows);
+        List<String> themes = QuestionBank.loadCatalog().getThemes();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        List<String[]> history = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int correct = rnd.nextInt(13);
+            int wrong = 12 - correct;
+            history.add(new String[] {
+                start.plusMinutes(17L * i).toString(), themes.get(rnd.nextInt(themes.size())),
+                String.valueOf(correct), String.valueOf(wrong), String.format(Locale.US, "%.2f", 100.0 * correct / 12),
+                String.valueOf(rnd.nextInt(4)), String.valueOf(60 + rnd.nextInt(500)), "student-" + rnd.nextInt(50),
+            });
+        }
+        return history;
+    }
+
+    private static Map<String, StatsSegments.Summary> syntheticArchive() {
+        Map<String, StatsSegments.Summary> archived = new TreeMap<>();
+        for (String[] row : syntheticHistory(300)) {
+            archived.computeIfAbsent(row[1], k -> new StatsSegments.Summary()).add(row);
+        }
+        return archived;
+    }
+
+    /** @return bytes allocated by this thread so far, or -1 if the JVM cannot tell */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+            if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+                return sun.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static double micros(long[] nanos, int p) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))] / 1e3;
+    }
+}